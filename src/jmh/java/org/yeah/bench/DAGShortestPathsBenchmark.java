@@ -0,0 +1,138 @@
+package org.yeah.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.yeah.graph.dagsp.DAGShortestPaths;
+import org.yeah.graph.dagsp.IncrementalCriticalPath;
+import org.yeah.graph.dagsp.MultiSourcePaths;
+import org.yeah.graph.schedule.ListScheduler;
+import org.yeah.graph.topo.TopologicalSort;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.utils.GraphGenerator;
+import org.yeah.utils.Metrics;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DAGShortestPathsBenchmark {
+    @Param({"1000", "100000"})
+    public int nodes;
+
+    @Param({"2", "8"})
+    public int density;
+
+    private DAGShortestPaths paths;
+    private DAGShortestPaths widePaths;
+    private List<Integer> order;
+    private int source;
+    private MultiSourcePaths multiSource;
+    private int[] sources;
+    private IncrementalCriticalPath incremental;
+    private int edgeCount;
+    private int updates;
+    private ListScheduler scheduler;
+    private int[] durations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Graph graph = GraphGenerator.generatePureDAG(nodes, nodes * density);
+        CSRGraph dag = graph.toCSR();
+        order = new TopologicalSort(dag, new Metrics()).topologicalOrderKahn();
+        source = order.get(0);
+        paths = new DAGShortestPaths(dag, new Metrics());
+
+        Graph wide = new Graph();
+        wide.n = nodes;
+        for (int i = 0; i < graph.edges.size(); i++) {
+            wide.edges.add(graph.edges.u(i), graph.edges.v(i), 1_000_000_000);
+        }
+        widePaths = new DAGShortestPaths(wide, new Metrics());
+        widePaths.setOverflow(DAGShortestPaths.Overflow.SATURATING);
+
+        // 64 sources spread over the order, so rows sweep suffixes of different lengths
+        int[] orderArray = new TopologicalSort(dag, new Metrics()).topologicalOrderArray();
+        multiSource = new MultiSourcePaths(dag, orderArray, new Metrics(), ForkJoinPool.commonPool());
+        sources = new int[64];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = order.get((int) ((long) i * nodes / sources.length));
+        }
+
+        incremental = new IncrementalCriticalPath(dag, source, orderArray, new Metrics());
+        edgeCount = dag.edgeCount();
+
+        scheduler = new ListScheduler(dag, Metrics.disabled());
+        durations = new int[nodes];
+        Random random = new Random(42);
+        for (int i = 0; i < nodes; i++) {
+            durations[i] = 1 + random.nextInt(100);
+        }
+    }
+
+    @Benchmark
+    public int[] shortestPathsFromSource() {
+        return paths.shortestPathsFromSource(source, order);
+    }
+
+    @Benchmark
+    public int[] longestPathsFromSource() {
+        return paths.longestPathsFromSource(source, order);
+    }
+
+    @Benchmark
+    public DAGShortestPaths.CriticalPathResult findCriticalPath() {
+        return paths.findCriticalPath(source, order);
+    }
+
+    @Benchmark
+    public DAGShortestPaths.PathAnalysisResult analyzeFromSource() {
+        return paths.analyzeFromSource(source, order);
+    }
+
+    // Long engine on the same graph; compare with the three int benchmarks above
+    @Benchmark
+    public long[] shortestPathsLong() {
+        return paths.shortestPathsLong(source, order);
+    }
+
+    @Benchmark
+    public long[] longestPathsLong() {
+        return paths.longestPathsLong(source, order);
+    }
+
+    @Benchmark
+    public DAGShortestPaths.LongPathAnalysisResult analyzeFromSourceLong() {
+        return paths.analyzeFromSourceLong(source, order);
+    }
+
+    // Weights past the int bound, so the int loop adds with saturation
+    @Benchmark
+    public DAGShortestPaths.PathAnalysisResult analyzeFromSourceSaturating() {
+        return widePaths.analyzeFromSource(source, order);
+    }
+
+    @Benchmark
+    public int[][] shortestRows() {
+        return multiSource.shortestRows(sources);
+    }
+
+    // One weight change per call, walking through the edges; compare with findCriticalPath
+    @Benchmark
+    public int incrementalWeightUpdate() {
+        updates++;
+        incremental.updateWeight((int) ((updates * 7919L) % edgeCount), 1 + updates % 10);
+        return incremental.length();
+    }
+
+    // Bottom levels plus the event simulation on 8 workers
+    @Benchmark
+    public long listSchedule() {
+        return scheduler.schedule(durations, 8).makespan;
+    }
+}
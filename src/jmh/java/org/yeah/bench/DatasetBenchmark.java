@@ -0,0 +1,66 @@
+package org.yeah.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.yeah.graph.dagsp.DAGShortestPaths;
+import org.yeah.graph.scc.CondensationGraph;
+import org.yeah.graph.scc.EdgeWeightPolicy;
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.graph.topo.TopologicalSort;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.utils.JSONReader;
+import org.yeah.utils.Metrics;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The stages behind the README tables, on the bundled datasets (run from the repository root so
+// data/ resolves). Inputs are prepared once, each benchmark times one stage the way AnalysisPipeline runs it
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatasetBenchmark {
+    @Param({"small1", "small2", "small3", "medium1", "medium2", "medium3", "large1", "large2", "large3"})
+    public String dataset;
+
+    private CSRGraph graph;
+    private Graph condensation;
+    private List<Integer> componentOrder;
+    private int sourceComponent;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        graph = JSONReader.readCSR("data/" + dataset + ".json");
+        SCCResult components = new TarjanSCC(graph, new Metrics()).computeComponents();
+        condensation = new CondensationGraph(graph, components, EdgeWeightPolicy.MIN).getCondensationGraph();
+        componentOrder = new TopologicalSort(condensation, new Metrics()).topologicalOrderKahn();
+
+        // Same source as the pipeline: the first component in order with an outgoing edge
+        sourceComponent = 0;
+        for (int c : componentOrder) {
+            if (!condensation.getNeighbors(c).isEmpty()) {
+                sourceComponent = c;
+                break;
+            }
+        }
+    }
+
+    @Benchmark
+    public SCCResult scc() {
+        return new TarjanSCC(graph, new Metrics()).computeComponents();
+    }
+
+    @Benchmark
+    public List<Integer> topo() {
+        return new TopologicalSort(condensation, new Metrics()).topologicalOrderKahn();
+    }
+
+    @Benchmark
+    public DAGShortestPaths.PathAnalysisResult paths() {
+        return new DAGShortestPaths(condensation, new Metrics()).analyzeFromSource(sourceComponent, componentOrder);
+    }
+}
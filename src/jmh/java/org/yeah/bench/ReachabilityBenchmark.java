@@ -0,0 +1,72 @@
+package org.yeah.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.yeah.graph.reach.ReachabilityIndex;
+import org.yeah.model.CSRGraph;
+import org.yeah.utils.GraphGenerator;
+import org.yeah.utils.Metrics;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReachabilityBenchmark {
+    @Param({"1000", "20000"})
+    public int nodes;
+
+    // Unlimited budget builds the closure, 0 falls back to a single label
+    @Param({"unlimited", "0"})
+    public String budget;
+
+    private CSRGraph dag;
+    private int[] identity;
+    private long memoryBudget;
+    private ReachabilityIndex index;
+    private int[] from;
+    private int[] to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dag = GraphGenerator.generatePureDAG(nodes, nodes * 4).toCSR();
+        identity = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            identity[i] = i;
+        }
+        memoryBudget = budget.equals("unlimited") ? Long.MAX_VALUE : Long.parseLong(budget);
+        index = build();
+
+        Random random = new Random(42);
+        from = new int[1024];
+        to = new int[1024];
+        for (int i = 0; i < from.length; i++) {
+            from[i] = random.nextInt(nodes);
+            to[i] = random.nextInt(nodes);
+        }
+    }
+
+    @Benchmark
+    public ReachabilityIndex buildIndex() {
+        return build();
+    }
+
+    // 1024 random pairs per call
+    @Benchmark
+    public int queries() {
+        int reachable = 0;
+        for (int i = 0; i < from.length; i++) {
+            if (index.reaches(from[i], to[i])) {
+                reachable++;
+            }
+        }
+        return reachable;
+    }
+
+    private ReachabilityIndex build() {
+        return new ReachabilityIndex(dag, identity, memoryBudget, Metrics.disabled(), ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,61 @@
+package org.yeah.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.yeah.graph.scc.CondensationGraph;
+import org.yeah.graph.scc.EdgeWeightPolicy;
+import org.yeah.graph.scc.ParallelSCC;
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.utils.GraphGenerator;
+import org.yeah.utils.Metrics;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SCCBenchmark {
+    @Param({"1000", "100000"})
+    public int nodes;
+
+    // Average out-degree
+    @Param({"2", "8"})
+    public int density;
+
+    private Graph graph;
+    private CSRGraph csr;
+    private SCCResult components;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = GraphGenerator.generateCyclicGraph(nodes, nodes * density, Math.max(1, nodes / 100));
+        graph.buildGraph();
+        csr = graph.toCSR();
+        components = new TarjanSCC(csr, new Metrics()).computeComponents();
+    }
+
+    @Benchmark
+    public List<List<Integer>> tarjanFindSCCs() {
+        return new TarjanSCC(csr, new Metrics()).findSCCs();
+    }
+
+    @Benchmark
+    public SCCResult tarjanComputeComponents() {
+        return new TarjanSCC(csr, new Metrics()).computeComponents();
+    }
+
+    @Benchmark
+    public SCCResult parallelComputeComponents() {
+        return new ParallelSCC(csr, new Metrics()).computeComponents();
+    }
+
+    @Benchmark
+    public Graph condensation() {
+        return new CondensationGraph(graph, components, EdgeWeightPolicy.FIRST).getCondensationGraph();
+    }
+}
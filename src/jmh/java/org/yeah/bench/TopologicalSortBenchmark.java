@@ -0,0 +1,47 @@
+package org.yeah.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.yeah.graph.topo.TopologicalLevels;
+import org.yeah.graph.topo.TopologicalSort;
+import org.yeah.model.CSRGraph;
+import org.yeah.utils.GraphGenerator;
+import org.yeah.utils.Metrics;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopologicalSortBenchmark {
+    @Param({"1000", "100000"})
+    public int nodes;
+
+    @Param({"2", "8"})
+    public int density;
+
+    private CSRGraph dag;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dag = GraphGenerator.generatePureDAG(nodes, nodes * density).toCSR();
+    }
+
+    @Benchmark
+    public List<Integer> topologicalOrderKahn() {
+        return new TopologicalSort(dag, new Metrics()).topologicalOrderKahn();
+    }
+
+    @Benchmark
+    public TopologicalLevels topologicalLevels() {
+        return new TopologicalSort(dag, new Metrics()).topologicalLevels();
+    }
+
+    @Benchmark
+    public TopologicalLevels topologicalLevelsParallel() {
+        return new TopologicalSort(dag, new Metrics()).topologicalLevelsParallel(ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,132 @@
+package org.yeah;
+
+import org.yeah.graph.dagsp.DAGShortestPaths;
+import org.yeah.graph.scc.CondensationGraph;
+import org.yeah.graph.scc.EdgeWeightPolicy;
+import org.yeah.graph.scc.ParallelSCC;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.graph.topo.TopologicalSort;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.model.GraphHeader;
+import org.yeah.utils.Metrics;
+import java.io.IOException;
+import java.util.*;
+
+// The analysis of one graph, shared by Main and BatchRunner: load, SCCs, condensation, topological
+// order and waves, then paths from a source component. Each step runs as a Metrics stage
+public class AnalysisPipeline {
+    public interface GraphSource {
+        CSRGraph load() throws IOException;
+    }
+
+    private final boolean parallelScc;
+    private final boolean taskOrder;
+    private final ResultCache cache;
+
+    // parallelScc finds the components with ParallelSCC instead of Tarjan; taskOrder adds a lazy view
+    // of the node order over the components
+    public AnalysisPipeline(boolean parallelScc, boolean taskOrder) {
+        this(parallelScc, taskOrder, null);
+    }
+
+    // With a cache, a graph analysed before skips everything after loading and hashing it
+    public AnalysisPipeline(boolean parallelScc, boolean taskOrder, ResultCache cache) {
+        this.parallelScc = parallelScc;
+        this.taskOrder = taskOrder;
+        this.cache = cache;
+    }
+
+    public AnalysisResult run(String name, GraphSource source, Metrics metrics) throws IOException {
+        return run(name, source, null, metrics);
+    }
+
+    // The cache key takes the source and weight model the loaded graph carries; a non-null header
+    // overrides them
+    public AnalysisResult run(String name, GraphSource source, GraphHeader header, Metrics metrics) throws IOException {
+        AnalysisResult result = new AnalysisResult(name);
+        result.parallelScc = parallelScc;
+
+        // Read graph from file
+        Metrics.Stage loadStage = metrics.stage("load");
+        CSRGraph graph = source.load();
+        result.nodes = graph.n;
+        result.edges = graph.edgeCount();
+        result.addStage(loadStage, graph.n, graph.edgeCount());
+
+        long key = 0;
+        if (cache != null) {
+            Metrics.Stage lookupStage = metrics.stage("cache-lookup");
+            key = ResultCache.contentHash(graph, header == null ? graph.getSource() : header.source,
+                    header == null ? null : header.weightModel);
+            if (parallelScc) {
+                key = ResultCache.withVariant(key, "scc-parallel");
+            }
+            result.cached = cache.load(key, graph.n, graph.edgeCount(), result, taskOrder);
+            result.addStage(lookupStage, graph.n, graph.edgeCount());
+            if (result.cached) {
+                return result;
+            }
+        }
+
+        // 1. Find SCCs with the selected engine only
+        if (parallelScc) {
+            Metrics.Stage parallelStage = metrics.stage("scc-parallel");
+            result.components = new ParallelSCC(graph, metrics).computeComponents();
+            result.addStage(parallelStage, graph.n, graph.edgeCount());
+        } else {
+            Metrics.Stage sccStage = metrics.stage("scc");
+            result.components = new TarjanSCC(graph, metrics).computeComponents();
+            result.addStage(sccStage, graph.n, graph.edgeCount());
+        }
+
+        // 2. Build condensation graph
+        Metrics.Stage condensationStage = metrics.stage("condensation");
+        CondensationGraph condensation = new CondensationGraph(graph, result.components, EdgeWeightPolicy.MIN);
+        Graph condGraph = condensation.getCondensationGraph();
+        result.condensation = condGraph;
+        result.addStage(condensationStage, graph.n, graph.edgeCount());
+
+        // 3. Topological sort
+        Metrics.Stage topoStage = metrics.stage("topo");
+        TopologicalSort topo = new TopologicalSort(condGraph, metrics);
+        result.componentOrder = topo.topologicalOrderKahn();
+        if (taskOrder) {
+            result.taskOrder = topo.getTaskOrderView(result.componentOrder, result.components);
+        }
+        result.addStage(topoStage, condGraph.n, condGraph.edges.size());
+
+        Metrics.Stage wavesStage = metrics.stage("waves");
+        result.waves = topo.topologicalLevels();
+        result.addStage(wavesStage, condGraph.n, condGraph.edges.size());
+
+        // 4. Shortest, longest and critical path in a single sweep
+        if (condGraph.n > 0) {
+            Metrics.Stage pathsStage = metrics.stage("paths");
+            DAGShortestPaths dagSP = new DAGShortestPaths(condGraph, metrics);
+            result.sourceComponent = findGoodSourceComponent(condGraph, result.componentOrder);
+            result.paths = dagSP.analyzeFromSource(result.sourceComponent, result.componentOrder);
+            result.addStage(pathsStage, condGraph.n, condGraph.edges.size());
+        }
+
+        if (cache != null) {
+            Metrics.Stage storeStage = metrics.stage("cache-store");
+            cache.store(key, result);
+            result.addStage(storeStage, graph.n, graph.edgeCount());
+        }
+
+        return result;
+    }
+
+    // Helper method to find a good source component with outgoing edges
+    private static int findGoodSourceComponent(Graph condGraph, List<Integer> componentOrder) {
+        // Try to find a component that has outgoing edges
+        for (int comp : componentOrder) {
+            if (!condGraph.getNeighbors(comp).isEmpty()) {
+                return comp;
+            }
+        }
+        // If no component has outgoing edges, use the first one
+        return 0;
+    }
+}
@@ -0,0 +1,81 @@
+package org.yeah;
+
+import org.yeah.graph.dagsp.DAGShortestPaths;
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.graph.topo.TaskOrderView;
+import org.yeah.graph.topo.TopologicalLevels;
+import org.yeah.model.Graph;
+import org.yeah.utils.Metrics;
+import org.yeah.utils.MetricsExporter;
+import java.util.*;
+
+// Everything one AnalysisPipeline run produced for a graph, plus the stage that produced each part
+public class AnalysisResult {
+    public final String name;
+    public int nodes;
+    public long edges;
+    // Loaded from a ResultCache; only the load and cache-lookup stages ran
+    public boolean cached;
+
+    public SCCResult components;
+    public boolean parallelScc;
+    public Graph condensation;
+    public List<Integer> componentOrder;
+    // Null when the pipeline skips it
+    public TaskOrderView taskOrder;
+    public TopologicalLevels waves;
+
+    // Only set when the condensation has at least one node
+    public int sourceComponent = -1;
+    public DAGShortestPaths.PathAnalysisResult paths;
+
+    private final Map<String, StageRun> stages = new LinkedHashMap<>();
+
+    public AnalysisResult(String name) {
+        this.name = name;
+    }
+
+    private static class StageRun {
+        final Metrics.Stage stage;
+        final long nodes;
+        final long edges;
+
+        StageRun(Metrics.Stage stage, long nodes, long edges) {
+            this.stage = stage;
+            this.nodes = nodes;
+            this.edges = edges;
+        }
+    }
+
+    // Nodes and edges of the graph the stage worked on
+    void addStage(Metrics.Stage stage, long stageNodes, long stageEdges) {
+        stage.stop();
+        stages.put(stage.getName(), new StageRun(stage, stageNodes, stageEdges));
+    }
+
+    // Null if the stage did not run
+    public Metrics.Stage getStage(String stageName) {
+        StageRun run = stages.get(stageName);
+        return run == null ? null : run.stage;
+    }
+
+    // The stage that produced components: "scc-parallel" when the parallel engine ran, otherwise "scc"
+    public Metrics.Stage getSccStage() {
+        return getStage(parallelScc ? "scc-parallel" : "scc");
+    }
+
+    public long getElapsedNanos(String stageName) {
+        Metrics.Stage stage = getStage(stageName);
+        return stage == null ? 0 : stage.getElapsedNanos();
+    }
+
+    public List<String> getStageNames() {
+        return new ArrayList<>(stages.keySet());
+    }
+
+    public void exportTo(MetricsExporter exporter) {
+        for (StageRun run : stages.values()) {
+            exporter.record(name, run.nodes, run.edges, run.stage);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package org.yeah;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.yeah.model.CSRGraph;
+import org.yeah.utils.BinaryGraphIO;
+import org.yeah.utils.JSONReader;
+import org.yeah.utils.Metrics;
+import org.yeah.utils.MetricsExporter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Analyzes many graph files at once. Files run concurrently on a fixed pool, so at most `threads`
+// graphs are in memory; a file that fails is reported and the rest carry on. Results are aggregated
+// into one JSON report in input order.
+// Usage: BatchRunner <manifest.txt|directory> [--threads N] [--report report.json] [--metrics-dir dir]
+//                    [--cache-dir dir] [--cache-max-mb N] [--parallel-scc]
+public class BatchRunner {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final int threads;
+    private final MetricsExporter exporter;
+    private final AnalysisPipeline pipeline;
+
+    public BatchRunner(int threads, MetricsExporter exporter) {
+        this(threads, exporter, null);
+    }
+
+    public BatchRunner(int threads, MetricsExporter exporter, ResultCache cache) {
+        this(threads, exporter, cache, false);
+    }
+
+    public BatchRunner(int threads, MetricsExporter exporter, ResultCache cache, boolean parallelScc) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread, got " + threads);
+        }
+        this.threads = threads;
+        this.exporter = exporter;
+        this.pipeline = new AnalysisPipeline(parallelScc, false, cache);
+    }
+
+    public static class BatchEntry {
+        public String file;
+        public String name;
+        public String status;
+        public String error;
+        public int nodes;
+        public long edges;
+        public int sccCount;
+        public int largestScc;
+        public int condensationNodes;
+        public int condensationEdges;
+        public int waves;
+        public boolean cached;
+        public long criticalPathLength;
+        public int criticalPathNodes;
+        public long elapsedNanos;
+        public Map<String, Long> stageNanos = new LinkedHashMap<>();
+    }
+
+    public static class BatchReport {
+        public int files;
+        public int succeeded;
+        public int failed;
+        public int threads;
+        public long wallNanos;
+        public double graphsPerSecond;
+        public long totalNodes;
+        public long totalEdges;
+        public List<BatchEntry> entries = new ArrayList<>();
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: BatchRunner <manifest.txt|directory> [--threads N] [--report report.json] [--metrics-dir dir]"
+                    + " [--cache-dir dir] [--cache-max-mb N] [--parallel-scc]");
+            return;
+        }
+        try {
+            String threadsValue = Main.optionValue(args, "--threads");
+            int threads = threadsValue != null ? Integer.parseInt(threadsValue) : Runtime.getRuntime().availableProcessors();
+            String report = Main.optionValue(args, "--report");
+            if (report == null) {
+                report = "batch-report.json";
+            }
+            String metricsDir = Main.optionValue(args, "--metrics-dir");
+            boolean parallelScc = Arrays.asList(args).contains("--parallel-scc");
+
+            List<String> files = resolveInputs(args[0]);
+            MetricsExporter exporter = metricsDir != null ? new MetricsExporter() : null;
+            BatchReport result = new BatchRunner(threads, exporter, Main.openCache(args), parallelScc).run(files);
+
+            writeReport(result, report);
+            if (exporter != null) {
+                exporter.writeAll(metricsDir);
+            }
+
+            for (BatchEntry entry : result.entries) {
+                if (entry.error != null) {
+                    System.out.println("Failed: " + entry.file + " - " + entry.error);
+                }
+            }
+            System.out.println("Batch: " + result.files + " files, " + result.succeeded + " succeeded, "
+                    + result.failed + " failed in " + result.wallNanos / 1_000_000 + " ms ("
+                    + String.format("%.1f", result.graphsPerSecond) + " graphs/s, " + result.threads + " threads)");
+            System.out.println("Report written to " + report);
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // A directory gives its .json and .bin files; when both exist the .bin copy wins unless the JSON was
+    // edited after it was written, as in Main. Any other file is a manifest: one path per line, relative to the manifest, blank lines and # comments ignored
+    public static List<String> resolveInputs(String path) throws IOException {
+        File input = new File(path);
+        List<String> files = new ArrayList<>();
+        if (input.isDirectory()) {
+            File[] listed = input.listFiles((dir, name) -> name.endsWith(".json") || name.endsWith(".bin"));
+            if (listed == null) {
+                throw new IOException("Cannot list " + path);
+            }
+            Arrays.sort(listed);
+            for (File file : listed) {
+                String filePath = file.getPath();
+                File json = new File(baseName(filePath) + ".json");
+                File binary = new File(baseName(filePath) + ".bin");
+                if (json.exists() && binary.exists()) {
+                    boolean useBinary = binary.lastModified() >= json.lastModified();
+                    if (useBinary != file.equals(binary)) {
+                        continue;
+                    }
+                }
+                files.add(filePath);
+            }
+            return files;
+        }
+
+        File parent = input.getAbsoluteFile().getParentFile();
+        for (String line : Files.readAllLines(input.toPath())) {
+            String entry = line.trim();
+            if (entry.isEmpty() || entry.startsWith("#")) {
+                continue;
+            }
+            File file = new File(entry);
+            files.add(file.isAbsolute() ? file.getPath() : new File(parent, entry).getPath());
+        }
+        return files;
+    }
+
+    public BatchReport run(List<String> files) throws InterruptedException {
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "batch-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        List<Future<BatchEntry>> futures = new ArrayList<>();
+        for (String file : files) {
+            futures.add(executor.submit(() -> analyze(file)));
+        }
+
+        BatchReport report = new BatchReport();
+        report.threads = threads;
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                BatchEntry entry;
+                try {
+                    entry = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    // Errors such as OutOfMemoryError end up here; the other files keep going
+                    entry = failed(files.get(i), e.getCause());
+                }
+                report.entries.add(entry);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        report.wallNanos = System.nanoTime() - start;
+
+        for (BatchEntry entry : report.entries) {
+            report.files++;
+            if (entry.error == null) {
+                report.succeeded++;
+                report.totalNodes += entry.nodes;
+                report.totalEdges += entry.edges;
+            } else {
+                report.failed++;
+            }
+        }
+        report.graphsPerSecond = report.files * 1e9 / Math.max(1, report.wallNanos);
+        return report;
+    }
+
+    private BatchEntry analyze(String file) {
+        long start = System.nanoTime();
+        BatchEntry entry;
+        try {
+            AnalysisResult result = pipeline.run(new File(baseName(file)).getName(), () -> load(file), new Metrics());
+            entry = summarize(file, result);
+            if (exporter != null) {
+                result.exportTo(exporter);
+            }
+        } catch (Exception e) {
+            entry = failed(file, e);
+        }
+        entry.elapsedNanos = System.nanoTime() - start;
+        return entry;
+    }
+
+    private static CSRGraph load(String file) throws IOException {
+        return file.endsWith(".bin") ? BinaryGraphIO.map(file) : JSONReader.readCSR(file);
+    }
+
+    // Keeps the numbers only, so finished graphs can be collected while the batch is still running
+    private static BatchEntry summarize(String file, AnalysisResult result) {
+        BatchEntry entry = new BatchEntry();
+        entry.file = file;
+        entry.name = result.name;
+        entry.status = "ok";
+        entry.cached = result.cached;
+        entry.nodes = result.nodes;
+        entry.edges = result.edges;
+        entry.sccCount = result.components.count;
+        for (int c = 0; c < result.components.count; c++) {
+            entry.largestScc = Math.max(entry.largestScc, result.components.size(c));
+        }
+        entry.condensationNodes = result.condensation.n;
+        entry.condensationEdges = result.condensation.edges.size();
+        entry.waves = result.waves.levelCount;
+        if (result.paths != null) {
+            entry.criticalPathLength = result.paths.criticalPath.length;
+            entry.criticalPathNodes = result.paths.criticalPath.path.size();
+        }
+        for (String stage : result.getStageNames()) {
+            entry.stageNanos.put(stage, result.getElapsedNanos(stage));
+        }
+        return entry;
+    }
+
+    private static BatchEntry failed(String file, Throwable error) {
+        BatchEntry entry = new BatchEntry();
+        entry.file = file;
+        entry.name = new File(baseName(file)).getName();
+        entry.status = "failed";
+        entry.error = error.getClass().getSimpleName() + ": " + error.getMessage();
+        return entry;
+    }
+
+    public static void writeReport(BatchReport report, String path) throws IOException {
+        mapper.writerWithDefaultPrettyPrinter().writeValue(new File(path), report);
+    }
+
+    private static String baseName(String file) {
+        int dot = file.lastIndexOf('.');
+        return dot > file.lastIndexOf(File.separatorChar) ? file.substring(0, dot) : file;
+    }
+}
@@ -0,0 +1,27 @@
+package org.yeah;
+
+import org.yeah.utils.BinaryGraphIO;
+import java.io.File;
+import java.util.Arrays;
+
+public class ConvertData {
+    public static void main(String[] args) {
+        String directory = args.length > 0 ? args[0] : "data";
+        File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            System.out.println("No such directory: " + directory);
+            return;
+        }
+
+        Arrays.sort(files);
+        for (File json : files) {
+            String binaryPath = json.getPath().substring(0, json.getPath().length() - ".json".length()) + ".bin";
+            try {
+                BinaryGraphIO.convert(json.getPath(), binaryPath);
+                System.out.println("Converted: " + json.getPath() + " -> " + binaryPath);
+            } catch (Exception e) {
+                System.out.println("Error converting " + json.getPath() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,11 +1,43 @@
 package org.yeah;
 
 import org.yeah.utils.GraphGenerator;
+import org.yeah.utils.ScalableGraphGenerator;
 
 public class GenerateData {
+    // No arguments: the nine sample datasets.
+    // <output.json|output.bin> <nodes> <edges> [seed]: one large graph from ScalableGraphGenerator
     public static void main(String[] args) {
+        if (args.length >= 3) {
+            generateLarge(args);
+            return;
+        }
+
         System.out.println("Generating test datasets...");
         GraphGenerator.generateAllDatasets();
         System.out.println("All datasets generated successfully!");
     }
-}
\ No newline at end of file
+
+    private static void generateLarge(String[] args) {
+        try {
+            ScalableGraphGenerator.Config config = new ScalableGraphGenerator.Config();
+            config.nodes = Integer.parseInt(args[1]);
+            config.edges = Integer.parseInt(args[2]);
+            if (args.length > 3) {
+                config.seed = Long.parseLong(args[3]);
+            }
+
+            long start = System.nanoTime();
+            ScalableGraphGenerator generator = new ScalableGraphGenerator(config);
+            if (args[0].endsWith(".json")) {
+                generator.writeJson(args[0]);
+            } else {
+                generator.writeBinary(args[0]);
+            }
+            System.out.println("Generated: " + args[0] + " (nodes: " + config.nodes + ", components: "
+                    + generator.componentCount() + ", layers: " + generator.layerCount() + ") in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+}
@@ -1,18 +1,70 @@
 package org.yeah;
 
+import org.yeah.graph.scc.ParallelSCC;
+import org.yeah.graph.scc.SCCResult;
 import org.yeah.graph.scc.TarjanSCC;
-import org.yeah.graph.scc.CondensationGraph;
-import org.yeah.graph.topo.TopologicalSort;
 import org.yeah.graph.dagsp.DAGShortestPaths;
+import org.yeah.graph.schedule.ListScheduler;
+import org.yeah.model.CSRGraph;
 import org.yeah.model.Graph;
+import org.yeah.utils.BinaryGraphIO;
 import org.yeah.utils.JSONReader;
 import org.yeah.utils.Metrics;
+import org.yeah.utils.MetricsExporter;
 import org.yeah.utils.GraphGenerator;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 public class Main {
+    // Use the fork/join SCC engine instead of sequential Tarjan (enable with --parallel-scc)
+    private static boolean parallelScc = false;
+
+    // Warmed-up, alternating Tarjan and ParallelSCC timings for each dataset (enable with --compare-scc)
+    private static boolean compareScc = false;
+    private static final int COMPARE_WARMUP_ROUNDS = 20;
+    private static final int COMPARE_ROUNDS = 20;
+
+    // Per-stage metrics written as JSON lines, CSV and Prometheus text (enable with --metrics-dir <dir>)
+    private static MetricsExporter exporter = null;
+
+    // Results of graphs analysed before are read back instead of recomputed (enable with --cache-dir <dir>,
+    // bounded by --cache-max-mb, 256 MB by default)
+    private static ResultCache cache = null;
+
+    // Simulate running the condensation on this many workers (enable with --workers <N>)
+    private static int workers = 0;
+
+    // Earliest/latest starts and zero-slack components of the condensation (enable with --slack)
+    private static boolean slack = false;
+
     public static void main(String[] args) {
         try {
+            // --batch <manifest|directory> hands everything to BatchRunner, along with the other options
+            int batchIndex = Arrays.asList(args).indexOf("--batch");
+            if (batchIndex >= 0 && batchIndex + 1 < args.length) {
+                List<String> batchArgs = new ArrayList<>(Arrays.asList(args));
+                String input = batchArgs.remove(batchIndex + 1);
+                batchArgs.remove(batchIndex);
+                batchArgs.add(0, input);
+                BatchRunner.main(batchArgs.toArray(new String[0]));
+                return;
+            }
+
+            parallelScc = Arrays.asList(args).contains("--parallel-scc");
+            compareScc = Arrays.asList(args).contains("--compare-scc");
+            int metricsDirIndex = Arrays.asList(args).indexOf("--metrics-dir");
+            String metricsDir = metricsDirIndex >= 0 && metricsDirIndex + 1 < args.length ? args[metricsDirIndex + 1] : null;
+            if (metricsDir != null) {
+                exporter = new MetricsExporter();
+            }
+            cache = openCache(args);
+            slack = Arrays.asList(args).contains("--slack");
+            int workersIndex = Arrays.asList(args).indexOf("--workers");
+            if (workersIndex >= 0 && workersIndex + 1 < args.length) {
+                workers = Integer.parseInt(args[workersIndex + 1]);
+            }
+
             System.out.println("Starting Smart City Scheduling Analysis...");
             System.out.println();
 
@@ -36,6 +88,15 @@ public class Main {
                 System.out.println();
             }
 
+            if (exporter != null) {
+                exporter.writeAll(metricsDir);
+                System.out.println("Metrics written to " + metricsDir);
+            }
+
+            if (cache != null) {
+                System.out.println("Result cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses");
+            }
+
             System.out.println("All datasets analyzed successfully.");
 
         } catch (Exception e) {
@@ -44,10 +105,26 @@ public class Main {
         }
     }
 
+    // Shared with BatchRunner
+    static ResultCache openCache(String[] args) throws IOException {
+        String dir = optionValue(args, "--cache-dir");
+        if (dir == null) {
+            return null;
+        }
+        String maxMb = optionValue(args, "--cache-max-mb");
+        return new ResultCache(dir, (maxMb != null ? Long.parseLong(maxMb) : 256) << 20);
+    }
+
+    // The argument after flag, or null when the flag is missing or comes last
+    static String optionValue(String[] args, String flag) {
+        int index = Arrays.asList(args).indexOf(flag);
+        return index >= 0 && index + 1 < args.length ? args[index + 1] : null;
+    }
+
     private static boolean datasetsExist() {
         String[] datasets = {"small1", "small2", "small3", "medium1", "medium2", "medium3", "large1", "large2", "large3"};
         for (String dataset : datasets) {
-            java.io.File file = new java.io.File("data/" + dataset + ".json");
+            File file = new File("data/" + dataset + ".json");
             if (!file.exists()) {
                 return false;
             }
@@ -57,70 +134,21 @@ public class Main {
 
     private static void analyzeDataset(String datasetName) {
         try {
-            // Read graph from file
-            Graph graph = JSONReader.readGraph("data/" + datasetName + ".json");
-            System.out.println("Graph: " + graph.n + " nodes, " + graph.edges.size() + " edges");
-
-            Metrics metrics = new Metrics();
-
-            // 1. Find SCCs
-            metrics.startTimer();
-            TarjanSCC tarjan = new TarjanSCC(graph, metrics);
-            List<List<Integer>> sccs = tarjan.findSCCs();
-            metrics.stopTimer();
-
-            System.out.println("Strongly Connected Components:");
-            System.out.println("  SCCs found: " + sccs.size());
-            System.out.println("  SCC sizes: " + tarjan.getSccSizes());
-            System.out.println("  Time: " + metrics.getElapsedTime() / 1000 + " microseconds");
-            System.out.println("  DFS metrics: " + metrics.dfsVisits + " visits, " + metrics.dfsEdges + " edges");
-
-            // 2. Build condensation graph
-            CondensationGraph condensation = new CondensationGraph(graph, sccs);
-            Graph condGraph = condensation.getCondensationGraph();
-
-            System.out.println("Condensation Graph:");
-            System.out.println("  Components: " + condGraph.n);
-            System.out.println("  Edges between components: " + condGraph.edges.size());
-
-            // 3. Topological sort
-            metrics.reset();
-            metrics.startTimer();
-            TopologicalSort topo = new TopologicalSort(condGraph, metrics);
-            List<Integer> componentOrder = topo.topologicalOrderKahn();
-            List<Integer> taskOrder = topo.getOriginalTaskOrder(componentOrder,
-                    condensation.getNodeToComponent(), sccs);
-            metrics.stopTimer();
-
-            System.out.println("Topological Order:");
-            System.out.println("  Component order: " + componentOrder);
-            System.out.println("  Task order (first 10): " +
-                    (taskOrder.size() > 10 ? taskOrder.subList(0, 10) + "..." : taskOrder));
-            System.out.println("  Time: " + metrics.getElapsedTime() / 1000 + " microseconds");
-            System.out.println("  Kahn metrics: " + metrics.kahnPushes + " pushes, " + metrics.kahnPops + " pops");
-
-            // 4. Shortest and longest paths - FIXED: choose better source
-            if (condGraph.n > 0) {
-                metrics.reset();
-                metrics.startTimer();
-                DAGShortestPaths dagSP = new DAGShortestPaths(condGraph, metrics);
-
-                // Choose source component that has outgoing edges for better demonstration
-                int sourceComponent = findGoodSourceComponent(condGraph, componentOrder);
-
-                int[] shortestDist = dagSP.shortestPathsFromSource(sourceComponent, componentOrder);
-                int[] longestDist = dagSP.longestPathsFromSource(sourceComponent, componentOrder);
-                DAGShortestPaths.CriticalPathResult criticalPath =
-                        dagSP.findCriticalPath(sourceComponent, componentOrder);
-                metrics.stopTimer();
-
-                System.out.println("Path Analysis (from component " + sourceComponent + "):");
-                System.out.println("  Shortest distances: " + formatDistances(shortestDist));
-                System.out.println("  Longest distances: " + formatDistances(longestDist));
-                System.out.println("  Critical path: " + criticalPath.path);
-                System.out.println("  Critical path length: " + criticalPath.length);
-                System.out.println("  Time: " + metrics.getElapsedTime() / 1000 + " microseconds");
-                System.out.println("  Relaxations: " + metrics.relaxations);
+            AnalysisPipeline pipeline = new AnalysisPipeline(parallelScc, true, cache);
+            String basePath = "data/" + datasetName;
+            AnalysisResult result = pipeline.run(datasetName, () -> loadGraph(basePath), new Metrics());
+            printResult(result);
+            if (slack) {
+                printSlack(result);
+            }
+            if (workers > 0) {
+                printSchedule(result);
+            }
+            if (compareScc) {
+                printSccComparison(loadGraph(basePath));
+            }
+            if (exporter != null) {
+                result.exportTo(exporter);
             }
 
             System.out.println("Analysis completed for " + datasetName);
@@ -130,16 +158,139 @@ public class Main {
         }
     }
 
-    // Helper method to find a good source component with outgoing edges
-    private static int findGoodSourceComponent(Graph condGraph, List<Integer> componentOrder) {
-        // Try to find a component that has outgoing edges
-        for (int comp : componentOrder) {
-            if (!condGraph.getNeighbors(comp).isEmpty()) {
-                return comp;
+    private static void printResult(AnalysisResult result) {
+        System.out.println("Graph: " + result.nodes + " nodes, " + result.edges + " edges"
+                + (result.cached ? " (cached result)" : ""));
+
+        // 1. SCCs
+        SCCResult components = result.components;
+        Metrics.Stage sccStage = result.getSccStage();
+        System.out.println("Strongly Connected Components" + (result.parallelScc ? " (parallel):" : ":"));
+        System.out.println("  SCCs found: " + components.count);
+        System.out.println("  SCC sizes: " + components.sizes());
+        System.out.println("  Time: " + formatTime(sccStage));
+        if (sccStage != null) {
+            System.out.println("  DFS metrics: " + sccStage.getCounter("dfs_visits") + " visits, "
+                    + sccStage.getCounter("dfs_edges") + " edges");
+        }
+
+        // 2. Condensation graph
+        Graph condGraph = result.condensation;
+        System.out.println("Condensation Graph:");
+        System.out.println("  Components: " + condGraph.n);
+        System.out.println("  Edges between components: " + condGraph.edges.size());
+
+        // 3. Topological sort
+        List<Integer> taskOrder = result.taskOrder;
+        Metrics.Stage topoStage = result.getStage("topo");
+        System.out.println("Topological Order:");
+        System.out.println("  Component order: " + result.componentOrder);
+        System.out.println("  Task order (first 10): " +
+                (taskOrder.size() > 10 ? taskOrder.subList(0, 10) + "..." : taskOrder));
+        System.out.println("  Time: " + formatTime(topoStage));
+        if (topoStage != null) {
+            System.out.println("  Kahn metrics: " + topoStage.getCounter("kahn_pushes") + " pushes, "
+                    + topoStage.getCounter("kahn_pops") + " pops");
+        }
+        System.out.println("  Waves: " + result.waves.levelCount);
+
+        // 4. Shortest and longest paths
+        if (result.paths != null) {
+            DAGShortestPaths.PathAnalysisResult paths = result.paths;
+            Metrics.Stage pathsStage = result.getStage("paths");
+            System.out.println("Path Analysis (from component " + result.sourceComponent + "):");
+            System.out.println("  Shortest distances: " + formatDistances(paths.shortest));
+            System.out.println("  Longest distances: " + formatDistances(paths.longest));
+            System.out.println("  Critical path: " + paths.criticalPath.path);
+            System.out.println("  Critical path length: " + paths.criticalPath.length);
+            System.out.println("  Time: " + formatTime(pathsStage));
+            if (pathsStage != null) {
+                System.out.println("  Relaxations: " + pathsStage.getCounter("relaxations"));
             }
         }
-        // If no component has outgoing edges, use the first one
-        return 0;
+    }
+
+    private static void printSlack(AnalysisResult result) {
+        Metrics metrics = new Metrics();
+        Metrics.Stage stage = metrics.stage("slack");
+        DAGShortestPaths.SlackResult slackResult = new DAGShortestPaths(result.condensation, metrics)
+                .analyzeSlack(result.componentOrder);
+        stage.stop();
+
+        int[] critical = slackResult.criticalNodes;
+        System.out.println("Slack Analysis:");
+        System.out.println("  Longest path length: " + slackResult.length);
+        System.out.println("  Zero-slack components: " + critical.length + " of " + result.condensation.n + " "
+                + Arrays.toString(Arrays.copyOf(critical, Math.min(critical.length, 10)))
+                + (critical.length > 10 ? "..." : ""));
+        System.out.println("  Time: " + formatTime(stage));
+    }
+
+    // Tasks are the condensation's components, timed by their node weights or one unit each
+    private static void printSchedule(AnalysisResult result) {
+        Metrics metrics = new Metrics();
+        Metrics.Stage stage = metrics.stage("schedule");
+        ListScheduler.Schedule schedule = new ListScheduler(result.condensation, metrics).schedule(workers);
+        stage.stop();
+
+        System.out.println("Schedule (" + workers + " workers, critical path first):");
+        System.out.println("  Makespan: " + schedule.makespan + " (critical path " + schedule.criticalPathLength
+                + ", total work " + schedule.totalWork + ")");
+        System.out.println("  Utilization: " + String.format("%.1f%%", schedule.utilization() * 100));
+        System.out.println("  Time: " + formatTime(stage));
+    }
+
+    // Reuse the binary copy of a dataset while it is up to date, otherwise parse the JSON once and write it
+    private static CSRGraph loadGraph(String basePath) throws IOException {
+        return BinaryGraphIO.map(binaryCopy(basePath));
+    }
+
+    private static String binaryCopy(String basePath) throws IOException {
+        File json = new File(basePath + ".json");
+        File binary = new File(basePath + ".bin");
+        if (!binary.exists() || binary.lastModified() < json.lastModified()) {
+            BinaryGraphIO.convert(json.getPath(), binary.getPath());
+        }
+        return binary.getPath();
+    }
+
+    // A single cold run mostly times the JIT, so both engines are warmed up first and then alternate,
+    // each going first in every other round, and the means are compared
+    private static void printSccComparison(CSRGraph graph) {
+        Metrics metrics = Metrics.disabled();
+        long tarjanNanos = 0;
+        long parallelNanos = 0;
+        for (int round = 0; round < COMPARE_WARMUP_ROUNDS + COMPARE_ROUNDS; round++) {
+            long tarjan;
+            long parallel;
+            if (round % 2 == 0) {
+                tarjan = timeScc(() -> new TarjanSCC(graph, metrics).computeComponents());
+                parallel = timeScc(() -> new ParallelSCC(graph, metrics).computeComponents());
+            } else {
+                parallel = timeScc(() -> new ParallelSCC(graph, metrics).computeComponents());
+                tarjan = timeScc(() -> new TarjanSCC(graph, metrics).computeComponents());
+            }
+            if (round >= COMPARE_WARMUP_ROUNDS) {
+                tarjanNanos += tarjan;
+                parallelNanos += parallel;
+            }
+        }
+        System.out.println("SCC Engine Comparison (" + COMPARE_WARMUP_ROUNDS + " warm-up, "
+                + COMPARE_ROUNDS + " timed rounds, alternating):");
+        System.out.println("  Tarjan mean: " + tarjanNanos / COMPARE_ROUNDS / 1000 + " microseconds");
+        System.out.println("  ParallelSCC mean: " + parallelNanos / COMPARE_ROUNDS / 1000 + " microseconds");
+        System.out.println("  Speedup: " + String.format("%.2fx", (double) tarjanNanos / Math.max(1, parallelNanos)));
+    }
+
+    private static long timeScc(Runnable engine) {
+        long start = System.nanoTime();
+        engine.run();
+        return System.nanoTime() - start;
+    }
+
+    // Stages skipped by a cache hit have no timing
+    private static String formatTime(Metrics.Stage stage) {
+        return stage == null ? "cached" : stage.getElapsedNanos() / 1000 + " microseconds";
     }
 
     private static String formatDistances(int[] distances) {
@@ -156,46 +307,22 @@ public class Main {
         return formatted.toString();
     }
 
-    // Method to analyze specific file
+    // Method to analyze specific file; runs the same pipeline as the datasets, so the condensation
+    // weights and the source component match theirs
     public static void analyzeSpecificFile(String filePath) {
         try {
             System.out.println("Analyzing: " + filePath);
-            Graph graph = JSONReader.readGraph(filePath);
-
-            Metrics metrics = new Metrics();
-
-            // SCC
-            metrics.startTimer();
-            TarjanSCC tarjan = new TarjanSCC(graph, metrics);
-            List<List<Integer>> sccs = tarjan.findSCCs();
-            metrics.stopTimer();
-
-            System.out.println("SCCs: " + sccs);
-            System.out.println("Time: " + metrics.getElapsedTime() + " ns");
-
-            // Condensation
-            CondensationGraph condensation = new CondensationGraph(graph, sccs);
-            Graph condGraph = condensation.getCondensationGraph();
-
-            // Topological sort
-            metrics.reset();
-            metrics.startTimer();
-            TopologicalSort topo = new TopologicalSort(condGraph, metrics);
-            List<Integer> componentOrder = topo.topologicalOrderKahn();
-            metrics.stopTimer();
-
-            System.out.println("Topological order: " + componentOrder);
-
-            // Paths
-            metrics.reset();
-            metrics.startTimer();
-            DAGShortestPaths dagSP = new DAGShortestPaths(condGraph, metrics);
-            DAGShortestPaths.CriticalPathResult criticalPath =
-                    dagSP.findCriticalPath(0, componentOrder);
-            metrics.stopTimer();
-
-            System.out.println("Critical path: " + criticalPath.path);
-            System.out.println("Critical length: " + criticalPath.length);
+            AnalysisPipeline pipeline = new AnalysisPipeline(parallelScc, false, cache);
+            AnalysisResult result = pipeline.run(new File(filePath).getName(), () ->
+                    filePath.endsWith(".bin") ? BinaryGraphIO.map(filePath) : JSONReader.readCSR(filePath), new Metrics());
+
+            System.out.println("SCCs: " + result.components.toLists());
+            System.out.println("Time: " + formatTime(result.getSccStage()));
+            System.out.println("Topological order: " + result.componentOrder);
+            if (result.paths != null) {
+                System.out.println("Critical path: " + result.paths.criticalPath.path);
+                System.out.println("Critical length: " + result.paths.criticalPath.length);
+            }
 
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
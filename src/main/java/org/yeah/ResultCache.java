@@ -0,0 +1,350 @@
+package org.yeah;
+
+import org.yeah.graph.dagsp.DAGShortestPaths;
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.graph.topo.TaskOrderView;
+import org.yeah.graph.topo.TopologicalLevels;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.EdgeList;
+import org.yeah.model.Graph;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// On-disk cache of analysis results, one file per graph named after a 64-bit hash of the graph's
+// contents. Entries are evicted least recently used first once the directory grows past maxBytes;
+// recency survives restarts through the files' modification times, which a hit refreshes.
+// Entry layout (big-endian):
+//   magic, version, key, n, m, SCC count, componentOf[n], offsets[count + 1], nodes[n],
+//   condensation n, weight model, node weights (count, -1 without) and edges (u, v, w each),
+//   component order, wave offsets and order,
+//   source component (-1 without paths), then shortest[], longest[], predecessor[] and the critical path
+public class ResultCache {
+    public static final int MAGIC = 0x59524553; // "YRES"
+    // 3: condensation weights use MIN instead of FIRST, so older entries are recomputed
+    public static final int VERSION = 3;
+    private static final String SUFFIX = ".res";
+
+    private final File dir;
+    private final long maxBytes;
+    // File name to size, iterated least recently used first
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ResultCache(String dir, long maxBytes) throws IOException {
+        this.dir = new File(dir);
+        this.maxBytes = maxBytes;
+        if (!this.dir.isDirectory() && !this.dir.mkdirs()) {
+            throw new IOException("Cannot create cache directory " + dir);
+        }
+
+        File[] files = this.dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            throw new IOException("Cannot list " + dir);
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            index.put(file.getName(), file.length());
+            totalBytes += file.length();
+        }
+        evict();
+    }
+
+    // Hash of everything the analysis depends on. Node degrees stand in for the offsets, every edge
+    // contributes its target and weight in CSR order. A null weightModel means the graph's own
+    public static long contentHash(CSRGraph graph, int source, String weightModel) {
+        long h = mix(0x9E3779B97F4A7C15L, graph.n);
+        h = mix(h, graph.edgeCount());
+        h = mix(h, source);
+        h = mix(h, (weightModel == null ? graph.getWeightModel() : weightModel).hashCode());
+        for (int u = 0; u < graph.n; u++) {
+            h = mix(h, graph.degree(u));
+        }
+        if (graph.hasNodeWeights()) {
+            for (int u = 0; u < graph.n; u++) {
+                h = mix(h, graph.nodeWeight(u));
+            }
+        }
+        int m = graph.edgeCount();
+        for (int e = 0; e < m; e++) {
+            h = mix(h, ((long) graph.target(e) << 32) | (graph.weight(e) & 0xFFFFFFFFL));
+        }
+        return finish(h);
+    }
+
+    public static long contentHash(Graph graph) {
+        return contentHash(graph.toCSR(), graph.source, graph.weightModel);
+    }
+
+    // Separate keys for the same graph analysed differently, e.g. with the parallel SCC engine
+    public static long withVariant(long key, String variant) {
+        return finish(mix(key, variant.hashCode()));
+    }
+
+    private static long mix(long h, long value) {
+        return Long.rotateLeft(h + value * 0xC2B2AE3D27D4EB4FL, 31) * 0x9E3779B97F4A7C15L;
+    }
+
+    // Final avalanche so nearby keys spread over the whole range
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    // Fills result from the entry for key and returns true, or returns false and leaves it untouched.
+    // An unreadable, mismatched or corrupt entry counts as a miss and is dropped
+    public boolean load(long key, int n, long m, AnalysisResult result, boolean taskOrder) {
+        String name = fileName(key);
+        synchronized (this) {
+            if (index.get(name) == null) {
+                misses.incrementAndGet();
+                return false;
+            }
+        }
+
+        File file = new File(dir, name);
+        AnalysisResult loaded = new AnalysisResult(result.name);
+        loaded.nodes = n;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != key
+                    || in.readInt() != n || in.readLong() != m) {
+                throw new IOException("Stale cache entry " + name);
+            }
+            read(in, loaded, taskOrder, file.length());
+        } catch (IOException | RuntimeException e) {
+            // Lengths are checked while reading, but a bad value inside an array can still fail later
+            remove(name);
+            misses.incrementAndGet();
+            return false;
+        }
+
+        result.components = loaded.components;
+        result.condensation = loaded.condensation;
+        result.componentOrder = loaded.componentOrder;
+        result.taskOrder = loaded.taskOrder;
+        result.waves = loaded.waves;
+        result.sourceComponent = loaded.sourceComponent;
+        result.paths = loaded.paths;
+        file.setLastModified(System.currentTimeMillis());
+        hits.incrementAndGet();
+        return true;
+    }
+
+    public void store(long key, AnalysisResult result) throws IOException {
+        String name = fileName(key);
+        File target = new File(dir, name);
+        File temp = File.createTempFile(name, ".tmp", dir);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(key);
+                out.writeInt(result.nodes);
+                out.writeLong(result.edges);
+                write(out, result);
+            }
+            // Readers only ever see complete entries
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+
+        synchronized (this) {
+            Long previous = index.put(name, target.length());
+            totalBytes += target.length() - (previous == null ? 0 : previous);
+            evict();
+        }
+    }
+
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            new File(dir, eldest.getKey()).delete();
+            totalBytes -= eldest.getValue();
+            it.remove();
+        }
+    }
+
+    private synchronized void remove(String name) {
+        Long size = index.remove(name);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        new File(dir, name).delete();
+    }
+
+    private static String fileName(long key) {
+        return String.format("%016x", key) + SUFFIX;
+    }
+
+    private static void write(DataOutputStream out, AnalysisResult result) throws IOException {
+        SCCResult components = result.components;
+        out.writeInt(components.count);
+        writeInts(out, components.componentArray());
+        writeInts(out, components.offsetArray());
+        writeInts(out, components.nodeArray());
+
+        Graph condensation = result.condensation;
+        out.writeInt(condensation.n);
+        out.writeUTF(condensation.weightModel);
+        out.writeInt(condensation.nodeWeights == null ? -1 : condensation.nodeWeights.length);
+        if (condensation.nodeWeights != null) {
+            writeInts(out, condensation.nodeWeights);
+        }
+        out.writeInt(condensation.edges.size());
+        EdgeList condensationEdges = condensation.edges;
+        for (int i = 0; i < condensationEdges.size(); i++) {
+            out.writeInt(condensationEdges.u(i));
+            out.writeInt(condensationEdges.v(i));
+            out.writeInt(condensationEdges.w(i));
+        }
+
+        out.writeInt(result.componentOrder.size());
+        for (int c : result.componentOrder) {
+            out.writeInt(c);
+        }
+
+        TopologicalLevels waves = result.waves;
+        out.writeInt(waves.levelCount);
+        for (int k = 0; k <= waves.levelCount; k++) {
+            out.writeInt(k == waves.levelCount ? waves.size() : waves.levelStart(k));
+        }
+        writeInts(out, waves.orderArray());
+
+        out.writeInt(result.paths == null ? -1 : result.sourceComponent);
+        if (result.paths != null) {
+            DAGShortestPaths.PathAnalysisResult paths = result.paths;
+            writeInts(out, paths.shortest);
+            writeInts(out, paths.longest);
+            writeInts(out, paths.predecessor);
+            out.writeInt(paths.criticalPath.length);
+            out.writeInt(paths.criticalPath.path.size());
+            for (int c : paths.criticalPath.path) {
+                out.writeInt(c);
+            }
+        }
+    }
+
+    // Every length is checked against the sizes it depends on and the bytes in the file before anything
+    // is allocated, so a corrupt entry fails with an IOException
+    private static void read(DataInputStream in, AnalysisResult result, boolean taskOrder, long bytes) throws IOException {
+        int count = readLength(in, result.nodes, bytes, "SCC count");
+        int[] componentOf = readInts(in, result.nodes);
+        int[] offsets = readInts(in, count + 1);
+        int[] nodes = readInts(in, result.nodes);
+        result.components = new SCCResult(count, componentOf, offsets, nodes);
+
+        Graph condensation = new Graph();
+        condensation.n = in.readInt();
+        if (condensation.n != count) {
+            throw new IOException("Condensation has " + condensation.n + " nodes for " + count + " SCCs");
+        }
+        condensation.weightModel = in.readUTF();
+        int weighted = in.readInt();
+        if (weighted >= 0) {
+            if (weighted != count) {
+                throw new IOException(weighted + " node weights for " + count + " SCCs");
+            }
+            condensation.nodeWeights = readInts(in, weighted);
+        }
+        int edges = readLength(in, Integer.MAX_VALUE, bytes / 3, "condensation edge count");
+        condensation.edges = new EdgeList(edges);
+        for (int i = 0; i < edges; i++) {
+            condensation.edges.add(in.readInt(), in.readInt(), in.readInt());
+        }
+        condensation.buildGraph();
+        result.condensation = condensation;
+
+        int orderSize = readLength(in, count, bytes, "component order size");
+        result.componentOrder = new ArrayList<>(orderSize);
+        for (int i = 0; i < orderSize; i++) {
+            result.componentOrder.add(in.readInt());
+        }
+        if (taskOrder) {
+            result.taskOrder = new TaskOrderView(result.componentOrder, result.components);
+        }
+
+        int levelCount = readLength(in, count, bytes, "level count");
+        int[] levelOffsets = readInts(in, levelCount + 1);
+        if (levelOffsets[levelCount] < 0 || levelOffsets[levelCount] > count) {
+            throw new IOException("Bad wave size " + levelOffsets[levelCount]);
+        }
+        int[] order = readInts(in, levelOffsets[levelCount]);
+        int[] level = new int[condensation.n];
+        Arrays.fill(level, -1);
+        for (int k = 0; k < levelCount; k++) {
+            for (int i = levelOffsets[k]; i < levelOffsets[k + 1]; i++) {
+                level[order[i]] = k;
+            }
+        }
+        result.waves = new TopologicalLevels(order, level, levelOffsets);
+
+        int sourceComponent = in.readInt();
+        if (sourceComponent >= count) {
+            throw new IOException("Bad source component " + sourceComponent);
+        }
+        if (sourceComponent >= 0) {
+            result.sourceComponent = sourceComponent;
+            int[] shortest = readInts(in, condensation.n);
+            int[] longest = readInts(in, condensation.n);
+            int[] predecessor = readInts(in, condensation.n);
+            int length = in.readInt();
+            int pathSize = readLength(in, count, bytes, "critical path size");
+            List<Integer> path = new ArrayList<>(pathSize);
+            for (int i = 0; i < pathSize; i++) {
+                path.add(in.readInt());
+            }
+            result.paths = new DAGShortestPaths.PathAnalysisResult(shortest, longest, predecessor,
+                    new DAGShortestPaths.CriticalPathResult(path, length));
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    // A length of at most max that also leaves room for that many ints in the file
+    private static int readLength(DataInputStream in, int max, long bytes, String what) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > max || 4L * length > bytes) {
+            throw new IOException("Bad " + what + " " + length);
+        }
+        return length;
+    }
+
+    private static int[] readInts(DataInputStream in, int length) throws IOException {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+}
@@ -1,79 +1,439 @@
 package org.yeah.graph.dagsp;
 
+import org.yeah.model.CSRGraph;
 import org.yeah.model.Graph;
 import org.yeah.utils.Metrics;
-import org.yeah.model.Edge;
 import java.util.*;
 
+// Path lengths follow the graph's weight model: "edge" sums edge weights, "node" sums the durations
+// of every node on the path, source included. The node model reads durations in place of edge
+// weights, so no split-node graph is built.
+// The int methods add without any checks while n times the largest weight fits in an int, since then
+// no path can leave the int range; the graph keeps that maximum from when it was built. Past the bound
+// the same loops add with saturation. If a sum really did saturate, CHECKED (the default) redoes the
+// sweep in long and throws when a final distance does not fit, and SATURATING keeps the clamped values.
+// The long methods never overflow, since a path sums at most n int weights and n is an int
 public class DAGShortestPaths {
-    private Graph graph;
+    public enum Overflow {
+        CHECKED,
+        SATURATING
+    }
+
+    private CSRGraph graph;
     private Metrics metrics;
+    // Null under the edge model
+    private int[] nodeWeights;
+    private Overflow overflow = Overflow.CHECKED;
+    // Set when an add saturated during the current sweep
+    private boolean saturated;
+
+    // Saturated distances sit just inside the unreachable sentinels
+    private static final int SATURATED_HIGH = Integer.MAX_VALUE - 1;
+    private static final int SATURATED_LOW = Integer.MIN_VALUE + 1;
 
     public DAGShortestPaths(Graph graph, Metrics metrics) {
+        this(graph.toCSR(), metrics);
+    }
+
+    public DAGShortestPaths(CSRGraph graph, Metrics metrics) {
         this.graph = graph;
         this.metrics = metrics;
+        if (graph.usesNodeWeights()) {
+            if (!graph.hasNodeWeights()) {
+                throw new IllegalArgumentException("Weight model \"node\" needs nodeWeights");
+            }
+            this.nodeWeights = graph.nodeWeightArray();
+        }
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    public void setOverflow(Overflow overflow) {
+        this.overflow = overflow;
+    }
+
+    // A path has at most n nodes and n - 1 edges, so n times the largest absolute cost bounds every
+    // distance. With weights up to 1000 that holds up to about two million nodes
+    public long pathBound() {
+        return graph.n * (nodeWeights != null ? graph.maxAbsNodeWeight() : graph.maxAbsWeight());
+    }
+
+    // True when the int methods can run without any overflow handling; the extreme values stay free
+    // for the unreachable sentinels
+    public boolean fitsInt() {
+        return pathBound() < Integer.MAX_VALUE;
+    }
+
+    // Length of a path that is just the source
+    private int startLength(int source) {
+        return nodeWeights == null ? 0 : nodeWeights[source];
+    }
+
+    // What following edge e into v adds to a path
+    private int cost(int e, int v) {
+        return nodeWeights == null ? graph.weight(e) : nodeWeights[v];
     }
 
     public int[] shortestPathsFromSource(int source, List<Integer> topologicalOrder) {
+        boolean exact = fitsInt();
+        saturated = false;
         int n = graph.n;
         int[] dist = new int[n];
         Arrays.fill(dist, Integer.MAX_VALUE);
-        dist[source] = 0;
+        dist[source] = startLength(source);
 
         // Follow topological order
+        long relaxations = 0;
         for (int node : topologicalOrder) {
             if (dist[node] != Integer.MAX_VALUE) {
-                for (Edge edge : graph.getNeighbors(node)) {
-                    metrics.relaxations++;
-                    if (dist[edge.v] > dist[node] + edge.w) {
-                        dist[edge.v] = dist[node] + edge.w;
+                for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                    relaxations++;
+                    int v = graph.target(e);
+                    int w = cost(e, v);
+                    int candidate = exact ? dist[node] + w : add(dist[node], w);
+                    if (dist[v] > candidate) {
+                        dist[v] = candidate;
                     }
                 }
             }
         }
+        metrics.addRelaxations(relaxations);
 
+        if (saturated && overflow == Overflow.CHECKED) {
+            return narrow(shortestPathsLong(source, topologicalOrder));
+        }
         return dist;
     }
 
     public int[] longestPathsFromSource(int source, List<Integer> topologicalOrder) {
         int n = graph.n;
         int[] dist = new int[n];
-        Arrays.fill(dist, Integer.MIN_VALUE);
-        dist[source] = 0;
+        relaxLongest(source, topologicalOrder, dist, null);
+        if (saturated && overflow == Overflow.CHECKED) {
+            return narrow(longestPathsLong(source, topologicalOrder));
+        }
+        return dist;
+    }
+
+    public CriticalPathResult findCriticalPath(int source, List<Integer> topologicalOrder) {
+        int n = graph.n;
+        int[] dist = new int[n];
+        int[] prev = new int[n];
+        relaxLongest(source, topologicalOrder, dist, prev);
+        if (saturated && overflow == Overflow.CHECKED) {
+            return narrow(analyzeFromSourceLong(source, topologicalOrder).criticalPath);
+        }
+        return criticalPathFrom(dist, prev);
+    }
 
-        // For longest path, we can invert weights and find shortest path
+    // Shortest distances, longest distances and longest-path predecessors in one sweep over the order
+    public PathAnalysisResult analyzeFromSource(int source, List<Integer> topologicalOrder) {
+        boolean exact = fitsInt();
+        saturated = false;
+        int n = graph.n;
+        int[] shortest = new int[n];
+        int[] longest = new int[n];
+        int[] prev = new int[n];
+        Arrays.fill(shortest, Integer.MAX_VALUE);
+        Arrays.fill(longest, Integer.MIN_VALUE);
+        Arrays.fill(prev, -1);
+        shortest[source] = startLength(source);
+        longest[source] = startLength(source);
+
+        long relaxations = 0;
         for (int node : topologicalOrder) {
-            if (dist[node] != Integer.MIN_VALUE) {
-                for (Edge edge : graph.getNeighbors(node)) {
-                    metrics.relaxations++;
-                    if (dist[edge.v] < dist[node] + edge.w) {
-                        dist[edge.v] = dist[node] + edge.w;
+            // Both distances are finite for exactly the nodes reachable from the source
+            if (shortest[node] == Integer.MAX_VALUE) {
+                continue;
+            }
+            int nodeShortest = shortest[node];
+            int nodeLongest = longest[node];
+            for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                relaxations++;
+                int v = graph.target(e);
+                int w = cost(e, v);
+                int shorter = exact ? nodeShortest + w : add(nodeShortest, w);
+                int longer = exact ? nodeLongest + w : add(nodeLongest, w);
+                if (shortest[v] > shorter) {
+                    shortest[v] = shorter;
+                }
+                if (longest[v] < longer) {
+                    longest[v] = longer;
+                    prev[v] = node;
+                }
+            }
+        }
+        metrics.addRelaxations(relaxations);
+
+        if (saturated && overflow == Overflow.CHECKED) {
+            LongPathAnalysisResult wide = analyzeFromSourceLong(source, topologicalOrder);
+            return new PathAnalysisResult(narrow(wide.shortest), narrow(wide.longest), wide.predecessor,
+                    narrow(wide.criticalPath));
+        }
+        return new PathAnalysisResult(shortest, longest, prev, criticalPathFrom(longest, prev));
+    }
+
+    public long[] shortestPathsLong(int source, List<Integer> topologicalOrder) {
+        long[] dist = new long[graph.n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        dist[source] = startLength(source);
+
+        long relaxations = 0;
+        for (int node : topologicalOrder) {
+            long d = dist[node];
+            if (d != Long.MAX_VALUE) {
+                for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                    relaxations++;
+                    int v = graph.target(e);
+                    long candidate = d + cost(e, v);
+                    if (dist[v] > candidate) {
+                        dist[v] = candidate;
                     }
                 }
             }
         }
+        metrics.addRelaxations(relaxations);
+        return dist;
+    }
+
+    public long[] longestPathsLong(int source, List<Integer> topologicalOrder) {
+        long[] dist = new long[graph.n];
+        Arrays.fill(dist, Long.MIN_VALUE);
+        dist[source] = startLength(source);
 
+        long relaxations = 0;
+        for (int node : topologicalOrder) {
+            long d = dist[node];
+            if (d != Long.MIN_VALUE) {
+                for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                    relaxations++;
+                    int v = graph.target(e);
+                    long candidate = d + cost(e, v);
+                    if (dist[v] < candidate) {
+                        dist[v] = candidate;
+                    }
+                }
+            }
+        }
+        metrics.addRelaxations(relaxations);
         return dist;
     }
 
-    public CriticalPathResult findCriticalPath(int source, List<Integer> topologicalOrder) {
+    // Same sweep as analyzeFromSource with long distances; unreachable nodes hold Long.MAX_VALUE and
+    // Long.MIN_VALUE
+    public LongPathAnalysisResult analyzeFromSourceLong(int source, List<Integer> topologicalOrder) {
         int n = graph.n;
-        int[] dist = new int[n];
+        long[] shortest = new long[n];
+        long[] longest = new long[n];
         int[] prev = new int[n];
-        Arrays.fill(dist, Integer.MIN_VALUE);
+        Arrays.fill(shortest, Long.MAX_VALUE);
+        Arrays.fill(longest, Long.MIN_VALUE);
         Arrays.fill(prev, -1);
-        dist[source] = 0;
+        shortest[source] = startLength(source);
+        longest[source] = startLength(source);
 
+        long relaxations = 0;
+        for (int node : topologicalOrder) {
+            if (shortest[node] == Long.MAX_VALUE) {
+                continue;
+            }
+            long nodeShortest = shortest[node];
+            long nodeLongest = longest[node];
+            for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                relaxations++;
+                int v = graph.target(e);
+                int w = cost(e, v);
+                if (shortest[v] > nodeShortest + w) {
+                    shortest[v] = nodeShortest + w;
+                }
+                if (longest[v] < nodeLongest + w) {
+                    longest[v] = nodeLongest + w;
+                    prev[v] = node;
+                }
+            }
+        }
+        metrics.addRelaxations(relaxations);
+
+        int endNode = -1;
+        long maxDist = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (longest[i] > maxDist) {
+                maxDist = longest[i];
+                endNode = i;
+            }
+        }
+        return new LongPathAnalysisResult(shortest, longest, prev,
+                new LongCriticalPathResult(reconstructPath(prev, endNode), maxDist));
+    }
+
+    // Sum clamped just inside the sentinels; once clamped, a distance stays clamped along the path
+    private int add(int distance, int w) {
+        if (distance == SATURATED_HIGH || distance == SATURATED_LOW) {
+            return distance;
+        }
+        long sum = (long) distance + w;
+        if (sum >= SATURATED_HIGH) {
+            saturated = true;
+            return SATURATED_HIGH;
+        }
+        if (sum <= SATURATED_LOW) {
+            saturated = true;
+            return SATURATED_LOW;
+        }
+        return (int) sum;
+    }
+
+    // Long distances back to int with the long sentinels mapped onto the int ones
+    private int[] narrow(long[] dist) {
+        int[] narrow = new int[dist.length];
+        for (int i = 0; i < dist.length; i++) {
+            narrow[i] = narrow(dist[i]);
+        }
+        return narrow;
+    }
+
+    private CriticalPathResult narrow(LongCriticalPathResult critical) {
+        return new CriticalPathResult(critical.path, narrow(critical.length));
+    }
+
+    private int narrow(long value) {
+        if (value == Long.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        if (value == Long.MIN_VALUE) {
+            return Integer.MIN_VALUE;
+        }
+        if (value > Integer.MIN_VALUE && value < Integer.MAX_VALUE) {
+            return (int) value;
+        }
+        throw new ArithmeticException("Path length " + value + " does not fit in an int; use the long methods");
+    }
+
+    private void relaxLongest(int source, List<Integer> topologicalOrder, int[] dist, int[] prev) {
+        boolean exact = fitsInt();
+        saturated = false;
+        Arrays.fill(dist, Integer.MIN_VALUE);
+        if (prev != null) {
+            Arrays.fill(prev, -1);
+        }
+        dist[source] = startLength(source);
+
+        long relaxations = 0;
         for (int node : topologicalOrder) {
             if (dist[node] != Integer.MIN_VALUE) {
-                for (Edge edge : graph.getNeighbors(node)) {
-                    if (dist[edge.v] < dist[node] + edge.w) {
-                        dist[edge.v] = dist[node] + edge.w;
-                        prev[edge.v] = node;
+                for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                    relaxations++;
+                    int v = graph.target(e);
+                    int w = cost(e, v);
+                    int candidate = exact ? dist[node] + w : add(dist[node], w);
+                    if (dist[v] < candidate) {
+                        dist[v] = candidate;
+                        if (prev != null) {
+                            prev[v] = node;
+                        }
                     }
                 }
             }
         }
+        metrics.addRelaxations(relaxations);
+    }
+
+    // Longest path from each node to any sink, counting the duration of every node on it including
+    // the node itself: the "bottom level" list schedulers rank tasks by. Sums are long so millions of
+    // durations cannot overflow. topologicalOrder must cover every node
+    public long[] bottomLevels(int[] durations, int[] topologicalOrder) {
+        if (durations.length != graph.n || topologicalOrder.length != graph.n) {
+            throw new IllegalArgumentException("Need " + graph.n + " durations and a complete order, got "
+                    + durations.length + " and " + topologicalOrder.length);
+        }
+        long[] level = new long[graph.n];
+        long relaxations = 0;
+        for (int i = topologicalOrder.length - 1; i >= 0; i--) {
+            int node = topologicalOrder[i];
+            long below = 0;
+            for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                relaxations++;
+                below = Math.max(below, level[graph.target(e)]);
+            }
+            level[node] = durations[node] + below;
+        }
+        metrics.addRelaxations(relaxations);
+        return level;
+    }
+
+    // Critical path method over the whole graph: a forward pass gives each node's earliest start
+    // with every source starting at 0, a backward pass over the reversed order gives the latest start
+    // that keeps the overall length, and slack is their difference. Under the node model a node takes
+    // its duration; under the edge model nodes take no time and edges are lags
+    public SlackResult analyzeSlack(List<Integer> topologicalOrder) {
+        int[] order = new int[topologicalOrder.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = topologicalOrder.get(i);
+        }
+        return analyzeSlack(order);
+    }
+
+    public SlackResult analyzeSlack(int[] topologicalOrder) {
+        int n = graph.n;
+        if (topologicalOrder.length != n) {
+            throw new IllegalArgumentException("Slack needs an order over all " + n + " nodes, got "
+                    + topologicalOrder.length);
+        }
+        long[] earliest = new long[n];
+        long[] latest = new long[n];
+        long relaxations = 0;
+
+        long length = 0;
+        for (int node : topologicalOrder) {
+            long finish = earliest[node] + duration(node);
+            length = Math.max(length, finish);
+            for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                relaxations++;
+                int v = graph.target(e);
+                earliest[v] = Math.max(earliest[v], finish + lag(e));
+            }
+        }
+
+        for (int i = n - 1; i >= 0; i--) {
+            int node = topologicalOrder[i];
+            long latestFinish = length;
+            for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                relaxations++;
+                latestFinish = Math.min(latestFinish, latest[graph.target(e)] - lag(e));
+            }
+            latest[node] = latestFinish - duration(node);
+        }
+        metrics.addRelaxations(relaxations);
+
+        long[] slack = new long[n];
+        int critical = 0;
+        for (int node = 0; node < n; node++) {
+            slack[node] = latest[node] - earliest[node];
+            if (slack[node] == 0) {
+                critical++;
+            }
+        }
+        int[] criticalNodes = new int[critical];
+        for (int node = 0, k = 0; node < n; node++) {
+            if (slack[node] == 0) {
+                criticalNodes[k++] = node;
+            }
+        }
+        return new SlackResult(earliest, latest, slack, length, criticalNodes);
+    }
+
+    private int duration(int node) {
+        return nodeWeights == null ? 0 : nodeWeights[node];
+    }
+
+    private int lag(int e) {
+        return nodeWeights == null ? graph.weight(e) : 0;
+    }
+
+    private CriticalPathResult criticalPathFrom(int[] dist, int[] prev) {
+        int n = dist.length;
 
         // Find node with maximum distance
         int maxDist = Integer.MIN_VALUE;
@@ -109,4 +469,65 @@ public class DAGShortestPaths {
             this.length = length;
         }
     }
-}
\ No newline at end of file
+
+    public static class LongCriticalPathResult {
+        public final List<Integer> path;
+        public final long length;
+
+        public LongCriticalPathResult(List<Integer> path, long length) {
+            this.path = path;
+            this.length = length;
+        }
+    }
+
+    public static class SlackResult {
+        public final long[] earliestStart;
+        public final long[] latestStart;
+        public final long[] slack;
+        // Length of the longest path anywhere in the graph
+        public final long length;
+        // Every node with zero slack, ascending; together they cover all critical paths
+        public final int[] criticalNodes;
+
+        public SlackResult(long[] earliestStart, long[] latestStart, long[] slack, long length, int[] criticalNodes) {
+            this.earliestStart = earliestStart;
+            this.latestStart = latestStart;
+            this.slack = slack;
+            this.length = length;
+            this.criticalNodes = criticalNodes;
+        }
+
+        public boolean isCritical(int node) {
+            return slack[node] == 0;
+        }
+    }
+
+    public static class PathAnalysisResult {
+        public int[] shortest;
+        public int[] longest;
+        public int[] predecessor;
+        public CriticalPathResult criticalPath;
+
+        public PathAnalysisResult(int[] shortest, int[] longest, int[] predecessor, CriticalPathResult criticalPath) {
+            this.shortest = shortest;
+            this.longest = longest;
+            this.predecessor = predecessor;
+            this.criticalPath = criticalPath;
+        }
+    }
+
+    public static class LongPathAnalysisResult {
+        public final long[] shortest;
+        public final long[] longest;
+        public final int[] predecessor;
+        public final LongCriticalPathResult criticalPath;
+
+        public LongPathAnalysisResult(long[] shortest, long[] longest, int[] predecessor,
+                                      LongCriticalPathResult criticalPath) {
+            this.shortest = shortest;
+            this.longest = longest;
+            this.predecessor = predecessor;
+            this.criticalPath = criticalPath;
+        }
+    }
+}
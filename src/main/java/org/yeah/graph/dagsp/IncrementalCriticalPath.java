@@ -0,0 +1,376 @@
+package org.yeah.graph.dagsp;
+
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.utils.Metrics;
+import java.util.*;
+
+// Longest distances and predecessors from one source, kept alive across edge weight changes. An update
+// only re-evaluates the targets of the changed edges and, where a distance actually moved, their
+// successors, in topological order; nodes outside that downstream cone are never touched.
+// Under the node model a path adds up node durations, source included, and updates change a node's
+// duration instead of an edge weight.
+// Distances are live int arrays, so n times the largest absolute cost must stay inside the int range:
+// a graph or update that could push a path past it is rejected with IllegalArgumentException
+public class IncrementalCriticalPath {
+    private final CSRGraph graph;
+    private final int source;
+    private final int n;
+    private final int[] weights;
+    // Current durations under the node model, null under the edge model
+    private final int[] durations;
+    // Largest absolute cost seen so far, including updated values
+    private long maxAbsCost;
+    private final int[] position;
+    private final Metrics metrics;
+
+    // Incoming edges per node as ids into the forward CSR, plus their source nodes
+    private final int[] inOffsets;
+    private final int[] inEdges;
+    private final int[] inSources;
+
+    private final int[] dist;
+    private final int[] prev;
+
+    // Tournament tree over the nodes holding the one with the largest distance (lowest id on ties)
+    private final int leaves;
+    private final int[] best;
+
+    // Pending nodes as a binary heap ordered by topological position
+    private final int[] heap;
+    private int heapSize;
+    private final boolean[] queued;
+
+    public IncrementalCriticalPath(Graph graph, int source, List<Integer> topologicalOrder, Metrics metrics) {
+        this(graph.toCSR(), source, toArray(topologicalOrder), metrics);
+    }
+
+    public IncrementalCriticalPath(CSRGraph graph, int source, int[] topologicalOrder, Metrics metrics) {
+        if (topologicalOrder.length != graph.n) {
+            throw new IllegalArgumentException("Topological order covers " + topologicalOrder.length
+                    + " of " + graph.n + " nodes; the graph must be a DAG");
+        }
+        this.graph = graph;
+        this.source = source;
+        this.n = graph.n;
+        this.metrics = metrics;
+
+        if (graph.usesNodeWeights()) {
+            if (!graph.hasNodeWeights()) {
+                throw new IllegalArgumentException("Weight model \"node\" needs nodeWeights");
+            }
+            durations = graph.nodeWeightArray().clone();
+        } else {
+            durations = null;
+        }
+        maxAbsCost = durations != null ? graph.maxAbsNodeWeight() : graph.maxAbsWeight();
+        checkBound(maxAbsCost);
+
+        int m = graph.edgeCount();
+        weights = new int[m];
+        for (int e = 0; e < m; e++) {
+            weights[e] = graph.weight(e);
+        }
+        position = new int[n];
+        for (int p = 0; p < n; p++) {
+            position[topologicalOrder[p]] = p;
+        }
+
+        inOffsets = new int[n + 1];
+        inEdges = new int[m];
+        inSources = new int[m];
+        for (int e = 0; e < m; e++) {
+            inOffsets[graph.target(e) + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        int[] cursor = Arrays.copyOf(inOffsets, n);
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.start(u), end = graph.end(u); e < end; e++) {
+                int pos = cursor[graph.target(e)]++;
+                inEdges[pos] = e;
+                inSources[pos] = u;
+            }
+        }
+
+        dist = new int[n];
+        prev = new int[n];
+        Arrays.fill(dist, Integer.MIN_VALUE);
+        Arrays.fill(prev, -1);
+        // An empty graph has no source to start from
+        if (n > 0) {
+            dist[source] = startLength();
+        }
+        long relaxations = 0;
+        for (int u : topologicalOrder) {
+            if (dist[u] == Integer.MIN_VALUE) {
+                continue;
+            }
+            for (int e = graph.start(u), end = graph.end(u); e < end; e++) {
+                relaxations++;
+                int v = graph.target(e);
+                if (dist[v] < dist[u] + cost(e)) {
+                    dist[v] = dist[u] + cost(e);
+                    prev[v] = u;
+                }
+            }
+        }
+        metrics.addRelaxations(relaxations);
+
+        int size = 1;
+        while (size < n) {
+            size <<= 1;
+        }
+        leaves = size;
+        best = new int[2 * size];
+        Arrays.fill(best, -1);
+        for (int node = 0; node < n; node++) {
+            best[size + node] = node;
+        }
+        for (int i = size - 1; i >= 1; i--) {
+            best[i] = better(best[2 * i], best[2 * i + 1]);
+        }
+
+        heap = new int[n];
+        queued = new boolean[n];
+    }
+
+    public int weight(int edge) {
+        return weights[edge];
+    }
+
+    // First edge u -> v in CSR order, or -1
+    public int edgeIndex(int u, int v) {
+        for (int e = graph.start(u), end = graph.end(u); e < end; e++) {
+            if (graph.target(e) == v) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    public void updateWeight(int edge, int weight) {
+        updateWeights(new int[]{edge}, new int[]{weight});
+    }
+
+    // Sets the new weights first and repropagates once for the whole batch
+    public void updateWeights(int[] edges, int[] newWeights) {
+        if (edges.length != newWeights.length) {
+            throw new IllegalArgumentException(edges.length + " edges but " + newWeights.length + " weights");
+        }
+        if (durations != null) {
+            throw new IllegalArgumentException("Edge weights do not count under the node model; use updateNodeWeights");
+        }
+        maxAbsCost = checkBound(maxAbsCost, newWeights);
+        for (int i = 0; i < edges.length; i++) {
+            int e = edges[i];
+            if (weights[e] != newWeights[i]) {
+                weights[e] = newWeights[i];
+                push(graph.target(e));
+            }
+        }
+        propagate();
+    }
+
+    public void updateNodeWeight(int node, int duration) {
+        updateNodeWeights(new int[]{node}, new int[]{duration});
+    }
+
+    // Node model only: a new duration changes every path through the node, so it is re-evaluated
+    // like the target of a changed edge
+    public void updateNodeWeights(int[] nodes, int[] newDurations) {
+        if (nodes.length != newDurations.length) {
+            throw new IllegalArgumentException(nodes.length + " nodes but " + newDurations.length + " durations");
+        }
+        if (durations == null) {
+            throw new IllegalArgumentException("Node durations need weight model \"node\"");
+        }
+        maxAbsCost = checkBound(maxAbsCost, newDurations);
+        for (int i = 0; i < nodes.length; i++) {
+            int node = nodes[i];
+            if (durations[node] != newDurations[i]) {
+                durations[node] = newDurations[i];
+                push(node);
+            }
+        }
+        propagate();
+    }
+
+    private void propagate() {
+        long relaxations = 0;
+        while (heapSize > 0) {
+            int v = pop();
+            int oldDist = dist[v];
+
+            // Same winner as a full sweep: the largest total, ties going to the earliest predecessor in
+            // topological order and then to the earliest edge
+            int newDist = v == source ? startLength() : Integer.MIN_VALUE;
+            int newPrev = -1;
+            int newEdge = -1;
+            if (v != source) {
+                for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                    relaxations++;
+                    int u = inSources[i];
+                    if (dist[u] == Integer.MIN_VALUE) {
+                        continue;
+                    }
+                    int candidate = dist[u] + cost(inEdges[i]);
+                    if (candidate > newDist || (candidate == newDist && newPrev != -1
+                            && (position[u] < position[newPrev] || (u == newPrev && inEdges[i] < newEdge)))) {
+                        newDist = candidate;
+                        newPrev = u;
+                        newEdge = inEdges[i];
+                    }
+                }
+            }
+            prev[v] = newPrev;
+
+            if (newDist != oldDist) {
+                dist[v] = newDist;
+                refresh(v);
+                for (int e = graph.start(v), end = graph.end(v); e < end; e++) {
+                    push(graph.target(e));
+                }
+            }
+        }
+        metrics.addRelaxations(relaxations);
+    }
+
+    // 0 for an empty graph, which has no path at all
+    public int length() {
+        return n == 0 ? 0 : dist[best[1]];
+    }
+
+    public DAGShortestPaths.CriticalPathResult criticalPath() {
+        if (n == 0) {
+            return new DAGShortestPaths.CriticalPathResult(new ArrayList<>(), 0);
+        }
+        int endNode = best[1];
+        List<Integer> path = new ArrayList<>();
+        for (int at = endNode; at != -1; at = prev[at]) {
+            path.add(at);
+        }
+        Collections.reverse(path);
+        return new DAGShortestPaths.CriticalPathResult(path, dist[endNode]);
+    }
+
+    // Live arrays, callers must not modify them
+    public int[] distances() {
+        return dist;
+    }
+
+    public int[] predecessors() {
+        return prev;
+    }
+
+    // The graph with its current weights and durations
+    public CSRGraph toCSR() {
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[weights.length];
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.start(u), end = graph.end(u); e < end; e++) {
+                targets[e] = graph.target(e);
+            }
+            offsets[u + 1] = graph.end(u);
+        }
+        CSRGraph current = new CSRGraph(n, offsets, targets, weights.clone());
+        if (durations != null) {
+            current.setNodeWeights(durations.clone());
+            current.setWeightModel("node");
+        }
+        return current;
+    }
+
+    // Checked before anything changes, so a rejected update leaves the distances as they were
+    private long checkBound(long maxAbs, int[] values) {
+        for (int value : values) {
+            maxAbs = Math.max(maxAbs, Math.abs((long) value));
+        }
+        checkBound(maxAbs);
+        return maxAbs;
+    }
+
+    private void checkBound(long maxAbs) {
+        if (n * maxAbs >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Paths over " + n + " nodes with costs up to " + maxAbs
+                    + " may not fit in an int");
+        }
+    }
+
+    // What following edge e adds to a path
+    private int cost(int e) {
+        return durations == null ? weights[e] : durations[graph.target(e)];
+    }
+
+    // Length of the path that is just the source
+    private int startLength() {
+        return durations == null ? 0 : durations[source];
+    }
+
+    private void refresh(int node) {
+        for (int i = (leaves + node) >> 1; i >= 1; i >>= 1) {
+            best[i] = better(best[2 * i], best[2 * i + 1]);
+        }
+    }
+
+    private int better(int a, int b) {
+        if (a == -1 || b == -1) {
+            return a == -1 ? b : a;
+        }
+        if (dist[a] != dist[b]) {
+            return dist[a] > dist[b] ? a : b;
+        }
+        return Math.min(a, b);
+    }
+
+    private void push(int node) {
+        if (queued[node]) {
+            return;
+        }
+        queued[node] = true;
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (position[heap[parent]] <= position[node]) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = node;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        queued[top] = false;
+        int last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && position[heap[child + 1]] < position[heap[child]]) {
+                child++;
+            }
+            if (position[heap[child]] >= position[last]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (heapSize > 0) {
+            heap[i] = last;
+        }
+        return top;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+}
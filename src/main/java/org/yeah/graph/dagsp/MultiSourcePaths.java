@@ -0,0 +1,227 @@
+package org.yeah.graph.dagsp;
+
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.utils.Metrics;
+import org.yeah.utils.Parallel;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+// Distance rows for many sources over one DAG. The graph is relabeled once so that node ids are
+// topological positions: a source at position s only has to sweep positions s..n-1, distances are
+// read and written in one increasing pass over memory, and sources are processed in parallel.
+// Under the node model the relabeled edge costs are the durations of their targets, and each row
+// starts from the source's own duration, as in DAGShortestPaths.
+// While n times the largest cost fits in an int the sweeps add without checks; above that they
+// saturate like DAGShortestPaths, and a row that really hits the limit throws ArithmeticException
+public class MultiSourcePaths {
+    private static final int SOURCES_PER_TASK = 8;
+    private static final int SATURATED_HIGH = Integer.MAX_VALUE - 1;
+    private static final int SATURATED_LOW = Integer.MIN_VALUE + 1;
+
+    // Receives one finished row; the array is reused for the next source, so copy it to keep it
+    public interface RowConsumer {
+        void accept(int source, int[] distances);
+    }
+
+    private final int n;
+    private final int[] order;
+    private final int[] position;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    // Duration of the node at each position under the node model, null under the edge model
+    private final int[] startCost;
+    // Whether n times the largest absolute cost stays below the int sentinels
+    private final boolean exact;
+    private final Metrics metrics;
+    private final ForkJoinPool pool;
+
+    public MultiSourcePaths(Graph graph, List<Integer> topologicalOrder, Metrics metrics) {
+        this(graph.toCSR(), toArray(topologicalOrder), metrics, ForkJoinPool.commonPool());
+    }
+
+    public MultiSourcePaths(CSRGraph graph, int[] topologicalOrder, Metrics metrics, ForkJoinPool pool) {
+        if (topologicalOrder.length != graph.n) {
+            throw new IllegalArgumentException("Topological order covers " + topologicalOrder.length
+                    + " of " + graph.n + " nodes; the graph must be a DAG");
+        }
+        this.n = graph.n;
+        this.order = topologicalOrder;
+        this.metrics = metrics;
+        this.pool = pool;
+        int[] nodeWeights = null;
+        if (graph.usesNodeWeights()) {
+            if (!graph.hasNodeWeights()) {
+                throw new IllegalArgumentException("Weight model \"node\" needs nodeWeights");
+            }
+            nodeWeights = graph.nodeWeightArray();
+        }
+
+        position = new int[n];
+        for (int p = 0; p < n; p++) {
+            position[order[p]] = p;
+        }
+
+        offsets = new int[n + 1];
+        targets = new int[graph.edgeCount()];
+        weights = new int[graph.edgeCount()];
+        int filled = 0;
+        for (int p = 0; p < n; p++) {
+            int node = order[p];
+            for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                targets[filled] = position[graph.target(e)];
+                weights[filled] = nodeWeights == null ? graph.weight(e) : nodeWeights[graph.target(e)];
+                filled++;
+            }
+            offsets[p + 1] = filled;
+        }
+        if (nodeWeights != null) {
+            startCost = new int[n];
+            for (int p = 0; p < n; p++) {
+                startCost[p] = nodeWeights[order[p]];
+            }
+        } else {
+            startCost = null;
+        }
+        long maxCost = nodeWeights != null ? graph.maxAbsNodeWeight() : graph.maxAbsWeight();
+        exact = n * maxCost < Integer.MAX_VALUE;
+    }
+
+    // Nodes without incoming edges, in topological order
+    public int[] entryNodes() {
+        boolean[] hasIncoming = new boolean[n];
+        for (int target : targets) {
+            hasIncoming[target] = true;
+        }
+        int count = 0;
+        int[] entries = new int[n];
+        for (int p = 0; p < n; p++) {
+            if (!hasIncoming[p]) {
+                entries[count++] = order[p];
+            }
+        }
+        return Arrays.copyOf(entries, count);
+    }
+
+    public int[][] shortestRows(int[] sources) {
+        int[][] rows = new int[sources.length][];
+        computeRows(sources, false, (index, row) -> rows[index] = row.clone(), true);
+        return rows;
+    }
+
+    public int[][] longestRows(int[] sources) {
+        int[][] rows = new int[sources.length][];
+        computeRows(sources, true, (index, row) -> rows[index] = row.clone(), true);
+        return rows;
+    }
+
+    // Streaming variants: rows are handed over as they finish, possibly from several threads at once
+    public void shortestRows(int[] sources, RowConsumer consumer) {
+        computeRows(sources, false, consumer, false);
+    }
+
+    public void longestRows(int[] sources, RowConsumer consumer) {
+        computeRows(sources, true, consumer, false);
+    }
+
+    private void computeRows(int[] sources, boolean longest, RowConsumer consumer, boolean byIndex) {
+        int tasks = (sources.length + SOURCES_PER_TASK - 1) / SOURCES_PER_TASK;
+
+        Parallel.forRange(pool, 0, tasks, 1, task -> {
+            int[] dist = new int[n];
+            int[] row = new int[n];
+            int unreached = longest ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            long relaxed = 0;
+
+            int from = task * SOURCES_PER_TASK;
+            int to = Math.min(sources.length, from + SOURCES_PER_TASK);
+            for (int i = from; i < to; i++) {
+                int start = position[sources[i]];
+                Arrays.fill(dist, start, n, unreached);
+                dist[start] = startCost == null ? 0 : startCost[start];
+                relaxed += longest ? sweepLongest(dist, start) : sweepShortest(dist, start);
+                if (!exact) {
+                    checkFits(dist, start, sources[i]);
+                }
+
+                // Positions before the source may still hold the previous source's distances
+                for (int node = 0; node < n; node++) {
+                    int p = position[node];
+                    row[node] = p < start ? unreached : dist[p];
+                }
+                consumer.accept(byIndex ? i : sources[i], row);
+            }
+            metrics.addRelaxations(relaxed);
+        });
+    }
+
+    private long sweepShortest(int[] dist, int start) {
+        long relaxed = 0;
+        for (int p = start; p < n; p++) {
+            int d = dist[p];
+            if (d == Integer.MAX_VALUE) {
+                continue;
+            }
+            for (int e = offsets[p], end = offsets[p + 1]; e < end; e++) {
+                int v = targets[e];
+                int candidate = exact ? d + weights[e] : add(d, weights[e]);
+                if (dist[v] > candidate) {
+                    dist[v] = candidate;
+                }
+            }
+            relaxed += offsets[p + 1] - offsets[p];
+        }
+        return relaxed;
+    }
+
+    private long sweepLongest(int[] dist, int start) {
+        long relaxed = 0;
+        for (int p = start; p < n; p++) {
+            int d = dist[p];
+            if (d == Integer.MIN_VALUE) {
+                continue;
+            }
+            for (int e = offsets[p], end = offsets[p + 1]; e < end; e++) {
+                int v = targets[e];
+                int candidate = exact ? d + weights[e] : add(d, weights[e]);
+                if (dist[v] < candidate) {
+                    dist[v] = candidate;
+                }
+            }
+            relaxed += offsets[p + 1] - offsets[p];
+        }
+        return relaxed;
+    }
+
+    // Saturated sums stick just inside the sentinels, so any distance past the int range ends there
+    private static int add(int distance, int w) {
+        if (distance == SATURATED_HIGH || distance == SATURATED_LOW) {
+            return distance;
+        }
+        long sum = (long) distance + w;
+        if (sum >= SATURATED_HIGH) {
+            return SATURATED_HIGH;
+        }
+        if (sum <= SATURATED_LOW) {
+            return SATURATED_LOW;
+        }
+        return (int) sum;
+    }
+
+    private static void checkFits(int[] dist, int start, int source) {
+        for (int p = start; p < dist.length; p++) {
+            if (dist[p] == SATURATED_HIGH || dist[p] == SATURATED_LOW) {
+                throw new ArithmeticException("A distance from " + source + " does not fit in an int");
+            }
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,639 @@
+package org.yeah.graph.dynamic;
+
+import org.yeah.graph.scc.EdgeWeightPolicy;
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.EdgeList;
+import org.yeah.model.Graph;
+import org.yeah.utils.IntList;
+import org.yeah.utils.Metrics;
+import java.util.*;
+
+// Keeps SCCs, the condensation DAG and a topological order of the components up to date under edge
+// insertions and deletions. Insertions repair the order Pearce-Kelly style: only components positioned
+// between the two endpoints are searched and reordered, and a cycle found on the way is merged into one
+// component. A deletion inside a component re-runs Tarjan on that component alone, once per batch
+public class DynamicGraph {
+    private final int n;
+    private final int source;
+    private final String weightModel;
+    // Node durations carried through to snapshots and summed per component; null when absent
+    private final int[] nodeWeights;
+    private final EdgeWeightPolicy weightPolicy;
+    private final Metrics metrics;
+
+    // Node adjacency in both directions, with each weight at the same index as its neighbor
+    private final IntList[] outTargets;
+    private final IntList[] outWeights;
+    private final IntList[] inSources;
+    private final IntList[] inWeights;
+    private int edgeCount;
+
+    // Components by id; ids of merged-away components are recycled through freeIds
+    private final int[] componentOf;
+    private final List<IntList> members = new ArrayList<>();
+    private final List<Map<Integer, Link>> outLinks = new ArrayList<>();
+    private final List<Map<Integer, Link>> inLinks = new ArrayList<>();
+    private final IntList freeIds = new IntList();
+    private int liveComponents;
+
+    // Topological order: position -> component (-1 for a hole left by a merge) and component -> position
+    private IntList slots = new IntList();
+    private final IntList position = new IntList();
+
+    // Components that lost an internal edge in the current batch and may have to split
+    private final Set<Integer> dirty = new HashSet<>();
+
+    // Visit stamps of the forward and backward searches, by component
+    private final IntList forwardMark = new IntList();
+    private final IntList backwardMark = new IntList();
+    private int stamp;
+    private final int[] localId;
+
+    // All node edges from one component to another collapse into one link
+    private static final class Link {
+        int count;
+        int weight;
+        // The edge that carried the weight was deleted; the weight is recomputed when next read
+        boolean stale;
+    }
+
+    public DynamicGraph(Graph graph, Metrics metrics) {
+        this(graph, EdgeWeightPolicy.MIN, metrics);
+    }
+
+    public DynamicGraph(Graph graph, EdgeWeightPolicy weightPolicy, Metrics metrics) {
+        if (weightPolicy == EdgeWeightPolicy.FIRST) {
+            throw new IllegalArgumentException("FIRST depends on edge order, which updates do not keep; use MIN or MAX");
+        }
+        this.n = graph.n;
+        this.source = graph.source;
+        this.weightModel = graph.weightModel;
+        this.nodeWeights = graph.nodeWeights == null ? null : graph.nodeWeights.clone();
+        this.weightPolicy = weightPolicy;
+        this.metrics = metrics;
+
+        outTargets = new IntList[n];
+        outWeights = new IntList[n];
+        inSources = new IntList[n];
+        inWeights = new IntList[n];
+        for (int node = 0; node < n; node++) {
+            outTargets[node] = new IntList(4);
+            outWeights[node] = new IntList(4);
+            inSources[node] = new IntList(4);
+            inWeights[node] = new IntList(4);
+        }
+        EdgeList edges = graph.edges;
+        edgeCount = edges.size();
+        for (int i = 0; i < edgeCount; i++) {
+            outTargets[edges.u(i)].add(edges.v(i));
+            outWeights[edges.u(i)].add(edges.w(i));
+            inSources[edges.v(i)].add(edges.u(i));
+            inWeights[edges.v(i)].add(edges.w(i));
+        }
+
+        componentOf = new int[n];
+        localId = new int[n];
+        Arrays.fill(localId, -1);
+
+        // Tarjan numbers components sinks first, so its reversed numbering is a topological order
+        SCCResult components = new TarjanSCC(graph, metrics).computeComponents();
+        for (int c = 0; c < components.count; c++) {
+            newComponent();
+            IntList list = members.get(c);
+            for (int pos = components.start(c); pos < components.end(c); pos++) {
+                int node = components.node(pos);
+                componentOf[node] = c;
+                list.add(node);
+            }
+        }
+        for (int p = 0; p < components.count; p++) {
+            int c = components.count - 1 - p;
+            slots.add(c);
+            position.set(c, p);
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            int from = componentOf[edges.u(i)];
+            int to = componentOf[edges.v(i)];
+            if (from != to) {
+                addLink(from, to, edges.w(i));
+            }
+        }
+    }
+
+    public void insertEdge(int u, int v, int w) {
+        apply(Collections.singletonList(EdgeUpdate.insert(u, v, w)));
+    }
+
+    // Removes one u -> v edge; false if there was none
+    public boolean deleteEdge(int u, int v) {
+        return apply(Collections.singletonList(EdgeUpdate.delete(u, v))) == 1;
+    }
+
+    // Applies the updates in order and returns how many changed the graph. Components that lost internal
+    // edges are only split after the whole batch, so many deletions in one component cost one Tarjan run
+    public int apply(List<EdgeUpdate> updates) {
+        for (EdgeUpdate update : updates) {
+            if (update.u < 0 || update.u >= n || update.v < 0 || update.v >= n) {
+                throw new IllegalArgumentException("Edge " + update.u + " -> " + update.v + " is outside 0.." + (n - 1));
+            }
+        }
+
+        int applied = 0;
+        for (EdgeUpdate update : updates) {
+            if (update.insert) {
+                addEdge(update.u, update.v, update.w);
+                applied++;
+            } else if (removeEdge(update.u, update.v)) {
+                applied++;
+            }
+        }
+        splitDirty();
+        return applied;
+    }
+
+    public int nodeCount() {
+        return n;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public int componentCount() {
+        return liveComponents;
+    }
+
+    public boolean sameComponent(int u, int v) {
+        return componentOf[u] == componentOf[v];
+    }
+
+    // Components numbered by topological position, so every condensation edge goes from a lower to a higher id
+    public SCCResult toSCCResult() {
+        int[] rank = rankComponents();
+        int[] ids = new int[n];
+        for (int node = 0; node < n; node++) {
+            ids[node] = rank[componentOf[node]];
+        }
+        return SCCResult.fromComponentIds(ids, liveComponents);
+    }
+
+    // Condensation DAG with the same component ids as toSCCResult()
+    public Graph condensationGraph() {
+        int[] rank = rankComponents();
+        Graph condensation = new Graph();
+        condensation.n = liveComponents;
+        condensation.weightModel = weightModel == null ? "edge" : weightModel;
+        if (nodeWeights != null) {
+            // Each component lasts as long as its members together, as in CondensationGraph
+            condensation.nodeWeights = new int[liveComponents];
+            for (int node = 0; node < n; node++) {
+                condensation.nodeWeights[rank[componentOf[node]]] += nodeWeights[node];
+            }
+        }
+        for (int p = 0; p < slots.size(); p++) {
+            int c = slots.get(p);
+            if (c == -1) {
+                continue;
+            }
+            for (Map.Entry<Integer, Link> entry : outLinks.get(c).entrySet()) {
+                int to = entry.getKey();
+                condensation.edges.add(rank[c], rank[to], weightOf(c, to, entry.getValue()));
+            }
+        }
+        condensation.buildGraph();
+        return condensation;
+    }
+
+    // Nodes grouped by component, components in topological order
+    public int[] taskOrder() {
+        int[] order = new int[n];
+        int filled = 0;
+        for (int p = 0; p < slots.size(); p++) {
+            int c = slots.get(p);
+            if (c == -1) {
+                continue;
+            }
+            IntList list = members.get(c);
+            for (int i = 0; i < list.size(); i++) {
+                order[filled++] = list.get(i);
+            }
+        }
+        return order;
+    }
+
+    // Snapshot of the current edges as a plain Graph
+    public Graph toGraph() {
+        Graph graph = new Graph();
+        graph.n = n;
+        graph.source = source;
+        graph.weightModel = weightModel;
+        graph.nodeWeights = nodeWeights == null ? null : nodeWeights.clone();
+        graph.edges = new EdgeList(edgeCount);
+        for (int u = 0; u < n; u++) {
+            for (int i = 0; i < outTargets[u].size(); i++) {
+                graph.edges.add(u, outTargets[u].get(i), outWeights[u].get(i));
+            }
+        }
+        graph.buildGraph();
+        return graph;
+    }
+
+    private void addEdge(int u, int v, int w) {
+        outTargets[u].add(v);
+        outWeights[u].add(w);
+        inSources[v].add(u);
+        inWeights[v].add(w);
+        edgeCount++;
+
+        int from = componentOf[u];
+        int to = componentOf[v];
+        if (from != to && addLink(from, to, w) && position.get(from) > position.get(to)) {
+            restoreOrder(from, to);
+        }
+    }
+
+    private boolean removeEdge(int u, int v) {
+        IntList targets = outTargets[u];
+        int index = -1;
+        for (int i = 0; i < targets.size() && index == -1; i++) {
+            if (targets.get(i) == v) {
+                index = i;
+            }
+        }
+        if (index == -1) {
+            return false;
+        }
+
+        int w = outWeights[u].get(index);
+        targets.swapRemove(index);
+        outWeights[u].swapRemove(index);
+        IntList sources = inSources[v];
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i) == u && inWeights[v].get(i) == w) {
+                sources.swapRemove(i);
+                inWeights[v].swapRemove(i);
+                break;
+            }
+        }
+        edgeCount--;
+
+        int from = componentOf[u];
+        int to = componentOf[v];
+        if (from != to) {
+            removeLink(from, to, w);
+        } else if (u != v) {
+            // Self loops never hold a component together, any other internal edge might
+            dirty.add(from);
+        }
+        return true;
+    }
+
+    // The new link from -> to points backwards in the order. Search forward from `to` and backward from
+    // `from` within the positions between them, then hand the searched positions out again: components
+    // that reach `from` first, then the merged cycle if there is one, then those reached from `to`
+    private void restoreOrder(int from, int to) {
+        int lower = position.get(to);
+        int upper = position.get(from);
+        stamp++;
+        IntList forward = search(to, outLinks, forwardMark, lower, upper);
+        IntList backward = search(from, inLinks, backwardMark, lower, upper);
+
+        int[] pool = new int[forward.size() + backward.size()];
+        int poolSize = 0;
+        IntList cycle = new IntList();
+        long[] ahead = new long[backward.size()];
+        int aheadCount = 0;
+        for (int i = 0; i < backward.size(); i++) {
+            int c = backward.get(i);
+            pool[poolSize++] = position.get(c);
+            if (forwardMark.get(c) == stamp) {
+                cycle.add(c);
+            } else {
+                ahead[aheadCount++] = ((long) position.get(c) << 32) | c;
+            }
+        }
+        long[] behind = new long[forward.size()];
+        int behindCount = 0;
+        for (int i = 0; i < forward.size(); i++) {
+            int c = forward.get(i);
+            if (backwardMark.get(c) != stamp) {
+                pool[poolSize++] = position.get(c);
+                behind[behindCount++] = ((long) position.get(c) << 32) | c;
+            }
+        }
+        Arrays.sort(pool, 0, poolSize);
+        Arrays.sort(ahead, 0, aheadCount);
+        Arrays.sort(behind, 0, behindCount);
+
+        int next = 0;
+        for (int i = 0; i < aheadCount; i++) {
+            place((int) ahead[i], pool[next++]);
+        }
+        if (!cycle.isEmpty()) {
+            place(merge(cycle), pool[next++]);
+        }
+        // Forward components keep the highest positions so none of them moves earlier than before
+        while (next < poolSize - behindCount) {
+            slots.set(pool[next++], -1);
+        }
+        for (int i = 0; i < behindCount; i++) {
+            place((int) behind[i], pool[next++]);
+        }
+    }
+
+    private IntList search(int start, List<Map<Integer, Link>> links, IntList mark, int lower, int upper) {
+        IntList found = new IntList();
+        IntList stack = new IntList();
+        long scanned = 0;
+        mark.set(start, stamp);
+        stack.add(start);
+        while (!stack.isEmpty()) {
+            int c = stack.removeLast();
+            found.add(c);
+            for (int next : links.get(c).keySet()) {
+                scanned++;
+                int p = position.get(next);
+                if (p >= lower && p <= upper && mark.get(next) != stamp) {
+                    mark.set(next, stamp);
+                    stack.add(next);
+                }
+            }
+        }
+        metrics.addDfsVisits(found.size());
+        metrics.addDfsEdges(scanned);
+        return found;
+    }
+
+    private void place(int component, int p) {
+        slots.set(p, component);
+        position.set(component, p);
+    }
+
+    // Folds every component on the new cycle into the largest of them and returns that one
+    private int merge(IntList cycle) {
+        int survivor = cycle.get(0);
+        for (int i = 1; i < cycle.size(); i++) {
+            if (members.get(cycle.get(i)).size() > members.get(survivor).size()) {
+                survivor = cycle.get(i);
+            }
+        }
+
+        boolean wasDirty = false;
+        IntList target = members.get(survivor);
+        for (int i = 0; i < cycle.size(); i++) {
+            int c = cycle.get(i);
+            wasDirty |= dirty.remove(c);
+            if (c == survivor) {
+                continue;
+            }
+            IntList list = members.get(c);
+            for (int j = 0; j < list.size(); j++) {
+                componentOf[list.get(j)] = survivor;
+                target.add(list.get(j));
+            }
+            for (Map.Entry<Integer, Link> entry : outLinks.get(c).entrySet()) {
+                int d = entry.getKey();
+                inLinks.get(d).remove(c);
+                if (!onCycle(d)) {
+                    mergeLink(survivor, d, entry.getValue());
+                }
+            }
+            for (Map.Entry<Integer, Link> entry : inLinks.get(c).entrySet()) {
+                int d = entry.getKey();
+                outLinks.get(d).remove(c);
+                if (!onCycle(d)) {
+                    mergeLink(d, survivor, entry.getValue());
+                }
+            }
+            releaseComponent(c);
+        }
+
+        // Links between the survivor and the rest of the cycle are internal now
+        for (int i = 0; i < cycle.size(); i++) {
+            outLinks.get(survivor).remove(cycle.get(i));
+            inLinks.get(survivor).remove(cycle.get(i));
+        }
+        if (wasDirty) {
+            dirty.add(survivor);
+        }
+        return survivor;
+    }
+
+    private boolean onCycle(int component) {
+        return forwardMark.get(component) == stamp && backwardMark.get(component) == stamp;
+    }
+
+    private void splitDirty() {
+        Map<Integer, int[]> replaced = new HashMap<>();
+        for (int c : dirty) {
+            int[] pieces = split(c);
+            if (pieces != null) {
+                replaced.put(position.get(c), pieces);
+            }
+        }
+        dirty.clear();
+
+        if (!replaced.isEmpty() || slots.size() > 2 * liveComponents + 64) {
+            renumber(replaced);
+        }
+    }
+
+    // Re-runs Tarjan on the component's own edges. Returns the pieces in topological order, or null if
+    // the component is still strongly connected
+    private int[] split(int c) {
+        IntList nodes = members.get(c);
+        int size = nodes.size();
+        for (int i = 0; i < size; i++) {
+            localId[nodes.get(i)] = i;
+        }
+
+        int[] offsets = new int[size + 1];
+        IntList targets = new IntList();
+        IntList weights = new IntList();
+        for (int i = 0; i < size; i++) {
+            int node = nodes.get(i);
+            for (int e = 0; e < outTargets[node].size(); e++) {
+                int local = localId[outTargets[node].get(e)];
+                if (local != -1) {
+                    targets.add(local);
+                    weights.add(outWeights[node].get(e));
+                }
+            }
+            offsets[i + 1] = targets.size();
+        }
+        CSRGraph inside = new CSRGraph(size, offsets, targets.toArray(), weights.toArray());
+        SCCResult pieces = new TarjanSCC(inside, metrics).computeComponents();
+
+        if (pieces.count > 1) {
+            // Links of c are rebuilt per piece below
+            for (int d : outLinks.get(c).keySet()) {
+                inLinks.get(d).remove(c);
+            }
+            for (int d : inLinks.get(c).keySet()) {
+                outLinks.get(d).remove(c);
+            }
+            outLinks.get(c).clear();
+            inLinks.get(c).clear();
+        }
+
+        int[] order = null;
+        if (pieces.count > 1) {
+            order = new int[pieces.count];
+            for (int k = 0; k < pieces.count; k++) {
+                int id = k == 0 ? c : newComponent();
+                IntList list = new IntList(pieces.size(k));
+                for (int pos = pieces.start(k); pos < pieces.end(k); pos++) {
+                    int node = nodes.get(pieces.node(pos));
+                    componentOf[node] = id;
+                    list.add(node);
+                }
+                members.set(id, list);
+                // Pieces come out of Tarjan sinks first
+                order[pieces.count - 1 - k] = id;
+            }
+
+            for (int i = 0; i < size; i++) {
+                int node = nodes.get(i);
+                int from = componentOf[node];
+                for (int e = 0; e < outTargets[node].size(); e++) {
+                    int to = componentOf[outTargets[node].get(e)];
+                    if (from != to) {
+                        addLink(from, to, outWeights[node].get(e));
+                    }
+                }
+                // Edges between pieces were added from their source side above
+                for (int e = 0; e < inSources[node].size(); e++) {
+                    int s = inSources[node].get(e);
+                    if (localId[s] == -1) {
+                        addLink(componentOf[s], from, inWeights[node].get(e));
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            localId[nodes.get(i)] = -1;
+        }
+        return order;
+    }
+
+    // Rebuilds the order in one pass: split pieces take the place of their component and holes are dropped
+    private void renumber(Map<Integer, int[]> replaced) {
+        IntList compact = new IntList(liveComponents);
+        for (int p = 0; p < slots.size(); p++) {
+            int[] pieces = replaced.get(p);
+            if (pieces != null) {
+                for (int piece : pieces) {
+                    position.set(piece, compact.size());
+                    compact.add(piece);
+                }
+            } else if (slots.get(p) != -1) {
+                position.set(slots.get(p), compact.size());
+                compact.add(slots.get(p));
+            }
+        }
+        slots = compact;
+    }
+
+    private int[] rankComponents() {
+        int[] rank = new int[members.size()];
+        int next = 0;
+        for (int p = 0; p < slots.size(); p++) {
+            int c = slots.get(p);
+            if (c != -1) {
+                rank[c] = next++;
+            }
+        }
+        return rank;
+    }
+
+    // Returns true when this is the first edge between the two components
+    private boolean addLink(int from, int to, int w) {
+        Link link = outLinks.get(from).get(to);
+        if (link == null) {
+            link = new Link();
+            link.weight = w;
+            outLinks.get(from).put(to, link);
+            inLinks.get(to).put(from, link);
+        } else if (!link.stale) {
+            link.weight = combine(link.weight, w);
+        }
+        return ++link.count == 1;
+    }
+
+    private void removeLink(int from, int to, int w) {
+        Link link = outLinks.get(from).get(to);
+        if (--link.count == 0) {
+            outLinks.get(from).remove(to);
+            inLinks.get(to).remove(from);
+        } else if (link.weight == w) {
+            link.stale = true;
+        }
+    }
+
+    private void mergeLink(int from, int to, Link link) {
+        Link existing = outLinks.get(from).get(to);
+        if (existing == null) {
+            outLinks.get(from).put(to, link);
+            inLinks.get(to).put(from, link);
+            return;
+        }
+        existing.count += link.count;
+        if (link.stale || existing.stale) {
+            existing.stale = true;
+        } else {
+            existing.weight = combine(existing.weight, link.weight);
+        }
+    }
+
+    private int weightOf(int from, int to, Link link) {
+        if (link.stale) {
+            boolean found = false;
+            int best = 0;
+            IntList list = members.get(from);
+            for (int i = 0; i < list.size(); i++) {
+                int node = list.get(i);
+                for (int e = 0; e < outTargets[node].size(); e++) {
+                    if (componentOf[outTargets[node].get(e)] == to) {
+                        int w = outWeights[node].get(e);
+                        best = found ? combine(best, w) : w;
+                        found = true;
+                    }
+                }
+            }
+            link.weight = best;
+            link.stale = false;
+        }
+        return link.weight;
+    }
+
+    private int combine(int a, int b) {
+        return weightPolicy == EdgeWeightPolicy.MIN ? Math.min(a, b) : Math.max(a, b);
+    }
+
+    private int newComponent() {
+        liveComponents++;
+        if (!freeIds.isEmpty()) {
+            int id = freeIds.removeLast();
+            members.set(id, new IntList(4));
+            return id;
+        }
+        members.add(new IntList(4));
+        outLinks.add(new HashMap<>());
+        inLinks.add(new HashMap<>());
+        position.add(-1);
+        forwardMark.add(0);
+        backwardMark.add(0);
+        return members.size() - 1;
+    }
+
+    private void releaseComponent(int c) {
+        liveComponents--;
+        members.set(c, null);
+        outLinks.get(c).clear();
+        inLinks.get(c).clear();
+        freeIds.add(c);
+    }
+}
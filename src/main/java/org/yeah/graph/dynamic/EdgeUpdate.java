@@ -0,0 +1,24 @@
+package org.yeah.graph.dynamic;
+
+// One change in a batch for DynamicGraph: insert u -> v with weight w, or delete one u -> v edge
+public class EdgeUpdate {
+    public final boolean insert;
+    public final int u;
+    public final int v;
+    public final int w;
+
+    private EdgeUpdate(boolean insert, int u, int v, int w) {
+        this.insert = insert;
+        this.u = u;
+        this.v = v;
+        this.w = w;
+    }
+
+    public static EdgeUpdate insert(int u, int v, int w) {
+        return new EdgeUpdate(true, u, v, w);
+    }
+
+    public static EdgeUpdate delete(int u, int v) {
+        return new EdgeUpdate(false, u, v, 0);
+    }
+}
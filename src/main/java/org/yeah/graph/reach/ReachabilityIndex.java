@@ -0,0 +1,279 @@
+package org.yeah.graph.reach;
+
+import org.yeah.graph.scc.CondensationGraph;
+import org.yeah.graph.topo.TopologicalSort;
+import org.yeah.model.CSRGraph;
+import org.yeah.utils.IntList;
+import org.yeah.utils.Metrics;
+import org.yeah.utils.Parallel;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+// Answers "can u reach v" on the original graph from an index over the condensation DAG. Nodes of
+// one SCC reach each other, so only component pairs need the index, and a component can only reach
+// components later in topological order.
+// If the full closure fits the memory budget, each component keeps a bitset over the components
+// after it in topological order (about k^2 / 16 bytes for k components) and queries are O(1).
+// Otherwise each component gets a few GRAIL interval labels from randomized DFS traversals: when
+// u reaches v, v's interval nests inside u's in every labeling, so most negative answers take O(labels)
+// and positive ones run a DFS that the labels prune. Both are built in parallel
+public class ReachabilityIndex {
+    public static final int MAX_LABELS = 5;
+    private static final long ARRAY_HEADER_BYTES = 16;
+
+    private final CSRGraph dag;
+    private final int[] componentOf;
+    private final int k;
+    // Position of each component in topological order
+    private final int[] rank;
+
+    // Closure mode: row c holds bit (rank[d] - rank[c] - 1) for every component d that c reaches
+    private long[][] rows;
+
+    // Label mode: component c has interval [low[i][c], post[i][c]] in labeling i
+    private int[][] low;
+    private int[][] post;
+
+    private final long memoryBytes;
+
+    public ReachabilityIndex(CondensationGraph condensation, long memoryBudget, Metrics metrics) {
+        this(condensation, memoryBudget, metrics, ForkJoinPool.commonPool());
+    }
+
+    public ReachabilityIndex(CondensationGraph condensation, long memoryBudget, Metrics metrics, ForkJoinPool pool) {
+        this(condensation.getCondensationGraph().toCSR(), condensation.getComponentOf(), memoryBudget, metrics, pool);
+    }
+
+    // dag must be acyclic; componentOf maps original nodes onto its nodes
+    public ReachabilityIndex(CSRGraph dag, int[] componentOf, long memoryBudget, Metrics metrics, ForkJoinPool pool) {
+        this.dag = dag;
+        this.componentOf = componentOf;
+        this.k = dag.n;
+
+        int[] order = new TopologicalSort(dag, metrics).topologicalOrderArray();
+        if (order.length != k) {
+            throw new IllegalArgumentException("Reachability index needs an acyclic graph");
+        }
+        rank = new int[k];
+        for (int i = 0; i < k; i++) {
+            rank[order[i]] = i;
+        }
+
+        long fixed = ARRAY_HEADER_BYTES + 4L * k;
+        long closure = closureBytes(k);
+        if (fixed + closure <= memoryBudget) {
+            buildClosure(order, metrics, pool);
+            memoryBytes = fixed + closure;
+        } else {
+            long perLabel = 2 * (ARRAY_HEADER_BYTES + 4L * k);
+            int labels = (int) Math.max(1, Math.min(MAX_LABELS, (memoryBudget - fixed) / perLabel));
+            buildLabels(labels, metrics, pool);
+            memoryBytes = fixed + labels * perLabel;
+        }
+    }
+
+    // Bytes the closure rows take for k components
+    public static long closureBytes(int k) {
+        long bytes = ARRAY_HEADER_BYTES + 8L * k;
+        for (int r = 0; r < k; r++) {
+            bytes += ARRAY_HEADER_BYTES + 8L * words(k - r - 1);
+        }
+        return bytes;
+    }
+
+    public boolean usesClosure() {
+        return rows != null;
+    }
+
+    public int labelCount() {
+        return low == null ? 0 : low.length;
+    }
+
+    // Estimated size of the index, within the budget it was built with unless even one label exceeds it
+    public long memoryBytes() {
+        return memoryBytes;
+    }
+
+    // True when there is a path from u to v in the original graph, including u == v
+    public boolean reaches(int u, int v) {
+        return componentReaches(componentOf[u], componentOf[v]);
+    }
+
+    public boolean componentReaches(int from, int to) {
+        if (from == to) {
+            return true;
+        }
+        if (rank[to] <= rank[from]) {
+            return false;
+        }
+        if (rows != null) {
+            int bit = rank[to] - rank[from] - 1;
+            return (rows[from][bit >>> 6] & (1L << bit)) != 0;
+        }
+        if (!nested(from, to)) {
+            return false;
+        }
+
+        // Labels only rule pairs out, so confirm with a DFS that skips anything they exclude
+        BitSet seen = new BitSet();
+        IntList stack = new IntList();
+        stack.add(from);
+        while (!stack.isEmpty()) {
+            int c = stack.removeLast();
+            for (int e = dag.start(c), end = dag.end(c); e < end; e++) {
+                int next = dag.target(e);
+                if (next == to) {
+                    return true;
+                }
+                if (!seen.get(next) && rank[next] < rank[to] && nested(next, to)) {
+                    seen.set(next);
+                    stack.add(next);
+                }
+            }
+        }
+        return false;
+    }
+
+    // Whether to's interval lies inside from's in every labeling
+    private boolean nested(int from, int to) {
+        for (int i = 0; i < low.length; i++) {
+            if (low[i][to] < low[i][from] || post[i][to] > post[i][from]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void buildClosure(int[] order, Metrics metrics, ForkJoinPool pool) {
+        rows = new long[k][];
+        for (int c = 0; c < k; c++) {
+            rows[c] = new long[words(k - rank[c] - 1)];
+        }
+
+        // Height 0 is the sinks; a component only reads rows of lower heights, so each height can be
+        // filled in parallel once the previous ones are done
+        int[] height = new int[k];
+        int maxHeight = 0;
+        for (int i = k - 1; i >= 0; i--) {
+            int c = order[i];
+            for (int e = dag.start(c), end = dag.end(c); e < end; e++) {
+                height[c] = Math.max(height[c], height[dag.target(e)] + 1);
+            }
+            maxHeight = Math.max(maxHeight, height[c]);
+        }
+        int[] byHeight = new int[k];
+        int[] heightStart = new int[maxHeight + 2];
+        for (int c = 0; c < k; c++) {
+            heightStart[height[c] + 1]++;
+        }
+        for (int h = 0; h <= maxHeight; h++) {
+            heightStart[h + 1] += heightStart[h];
+        }
+        int[] cursor = Arrays.copyOf(heightStart, maxHeight + 1);
+        for (int c = 0; c < k; c++) {
+            byHeight[cursor[height[c]]++] = c;
+        }
+
+        for (int h = 0; h <= maxHeight; h++) {
+            Parallel.forRange(pool, heightStart[h], heightStart[h + 1], 64, i -> {
+                int c = byHeight[i];
+                long[] row = rows[c];
+                for (int e = dag.start(c), end = dag.end(c); e < end; e++) {
+                    int next = dag.target(e);
+                    int offset = rank[next] - rank[c];
+                    row[(offset - 1) >>> 6] |= 1L << (offset - 1);
+                    orShifted(row, rows[next], offset);
+                }
+            });
+        }
+        metrics.addRelaxations(dag.edgeCount());
+    }
+
+    // dst bit (i + offset) |= src bit i
+    private static void orShifted(long[] dst, long[] src, int offset) {
+        int wordShift = offset >>> 6;
+        int bitShift = offset & 63;
+        for (int i = 0; i < src.length; i++) {
+            long word = src[i];
+            if (word == 0) {
+                continue;
+            }
+            int d = i + wordShift;
+            if (d < dst.length) {
+                dst[d] |= word << bitShift;
+            }
+            if (bitShift != 0 && d + 1 < dst.length) {
+                dst[d + 1] |= word >>> (64 - bitShift);
+            }
+        }
+    }
+
+    private void buildLabels(int labels, Metrics metrics, ForkJoinPool pool) {
+        low = new int[labels][];
+        post = new int[labels][];
+        Parallel.forRange(pool, 0, labels, 1, i -> label(i, new Random(0x5EED + i)));
+        metrics.addDfsVisits((long) labels * k);
+        metrics.addDfsEdges((long) labels * dag.edgeCount());
+    }
+
+    // One randomized post-order traversal: roots in random order, each component starting its
+    // edge scan at a random offset. low is the smallest post number below a component
+    private void label(int i, Random random) {
+        int[] lows = new int[k];
+        int[] posts = new int[k];
+        Arrays.fill(posts, -1);
+        int[] roots = new int[k];
+        for (int c = 0; c < k; c++) {
+            int j = random.nextInt(c + 1);
+            roots[c] = roots[j];
+            roots[j] = c;
+        }
+
+        boolean[] visited = new boolean[k];
+        int[] stack = new int[k];
+        int[] step = new int[k];
+        int[] first = new int[k];
+        int counter = 0;
+        for (int root : roots) {
+            if (visited[root]) {
+                continue;
+            }
+            int sp = 0;
+            stack[sp++] = root;
+            visited[root] = true;
+            first[root] = dag.degree(root) > 0 ? random.nextInt(dag.degree(root)) : 0;
+            lows[root] = Integer.MAX_VALUE;
+
+            while (sp > 0) {
+                int c = stack[sp - 1];
+                int degree = dag.degree(c);
+                if (step[c] < degree) {
+                    int next = dag.target(dag.start(c) + (first[c] + step[c]++) % degree);
+                    if (!visited[next]) {
+                        visited[next] = true;
+                        first[next] = dag.degree(next) > 0 ? random.nextInt(dag.degree(next)) : 0;
+                        lows[next] = Integer.MAX_VALUE;
+                        stack[sp++] = next;
+                    } else {
+                        // Acyclic, so a visited successor is already finished
+                        lows[c] = Math.min(lows[c], lows[next]);
+                    }
+                } else {
+                    posts[c] = counter++;
+                    lows[c] = Math.min(lows[c], posts[c]);
+                    sp--;
+                    if (sp > 0) {
+                        int parent = stack[sp - 1];
+                        lows[parent] = Math.min(lows[parent], lows[c]);
+                    }
+                }
+            }
+        }
+        low[i] = lows;
+        post[i] = posts;
+    }
+
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+}
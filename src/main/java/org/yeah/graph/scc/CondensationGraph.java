@@ -1,59 +1,155 @@
 package org.yeah.graph.scc;
 
+import org.yeah.model.CSRGraph;
 import org.yeah.model.Graph;
-import org.yeah.model.Edge;
+import org.yeah.model.EdgeList;
+import org.yeah.utils.LongIntHashMap;
 import java.util.*;
 
 public class CondensationGraph {
     private Graph originalGraph;
-    private List<List<Integer>> sccs;
+    private CSRGraph originalCSR;
+    private SCCResult components;
+    private EdgeWeightPolicy weightPolicy;
+    private int[] componentOf;
     private Map<Integer, Integer> nodeToComponent;
     private Graph condensationGraph;
 
+    // Working state while the condensation is built
+    private int[] condU;
+    private int[] condV;
+    private int[] condW;
+    private int count;
+    private LongIntHashMap addedEdges;
+
     public CondensationGraph(Graph originalGraph, List<List<Integer>> sccs) {
+        this(originalGraph, SCCResult.fromLists(sccs, originalGraph.n));
+    }
+
+    public CondensationGraph(Graph originalGraph, SCCResult components) {
+        this(originalGraph, components, EdgeWeightPolicy.FIRST);
+    }
+
+    public CondensationGraph(Graph originalGraph, SCCResult components, EdgeWeightPolicy weightPolicy) {
         this.originalGraph = originalGraph;
-        this.sccs = sccs;
-        this.nodeToComponent = new HashMap<>();
-        buildNodeToComponentMap();
+        this.components = components;
+        this.weightPolicy = weightPolicy;
+        this.componentOf = components.componentArray();
         buildCondensationGraph();
     }
 
-    private void buildNodeToComponentMap() {
-        for (int i = 0; i < sccs.size(); i++) {
-            for (int node : sccs.get(i)) {
-                nodeToComponent.put(node, i);
-            }
-        }
+    // Same condensation straight from CSR (e.g. a memory-mapped graph); "first" then means first in CSR order
+    public CondensationGraph(CSRGraph originalGraph, SCCResult components, EdgeWeightPolicy weightPolicy) {
+        this.originalCSR = originalGraph;
+        this.components = components;
+        this.weightPolicy = weightPolicy;
+        this.componentOf = components.componentArray();
+        buildCondensationGraph();
     }
 
     private void buildCondensationGraph() {
-        condensationGraph = new Graph();
-        condensationGraph.n = sccs.size();
-        condensationGraph.weightModel = "edge";
-
-        Set<String> addedEdges = new HashSet<>();
+        int m = originalGraph != null ? originalGraph.edges.size() : originalCSR.edgeCount();
+        condU = new int[Math.min(m, 16)];
+        condV = new int[condU.length];
+        condW = new int[condU.length];
+        count = 0;
 
-        for (Edge edge : originalGraph.edges) {
-            int compU = nodeToComponent.get(edge.u);
-            int compV = nodeToComponent.get(edge.v);
+        // Packed (compU, compV) key -> index of the condensation edge, in first-seen order
+        addedEdges = new LongIntHashMap(Math.min(m, 1 << 16));
 
-            if (compU != compV) {
-                String edgeKey = compU + "->" + compV;
-                if (!addedEdges.contains(edgeKey)) {
-                    condensationGraph.edges.add(new Edge(compU, compV, edge.w));
-                    addedEdges.add(edgeKey);
+        if (originalGraph != null) {
+            EdgeList edges = originalGraph.edges;
+            for (int i = 0; i < m; i++) {
+                addEdge(componentOf[edges.u(i)], componentOf[edges.v(i)], edges.w(i));
+            }
+        } else {
+            for (int u = 0; u < originalCSR.n; u++) {
+                int compU = componentOf[u];
+                for (int e = originalCSR.start(u), end = originalCSR.end(u); e < end; e++) {
+                    addEdge(compU, componentOf[originalCSR.target(e)], originalCSR.weight(e));
                 }
             }
         }
 
+        condensationGraph = new Graph();
+        condensationGraph.n = components.count;
+        String weightModel = originalGraph != null ? originalGraph.weightModel : originalCSR.getWeightModel();
+        condensationGraph.weightModel = weightModel == null ? "edge" : weightModel;
+        condensationGraph.nodeWeights = componentWeights(originalGraph != null
+                ? originalGraph.nodeWeights : originalCSR.nodeWeightArray());
+        condensationGraph.edges = new EdgeList(count);
+        for (int i = 0; i < count; i++) {
+            condensationGraph.edges.add(condU[i], condV[i], condW[i]);
+        }
+
         condensationGraph.buildGraph();
+        condU = null;
+        condV = null;
+        condW = null;
+        addedEdges = null;
+    }
+
+    private void addEdge(int compU, int compV, int w) {
+        if (compU == compV) {
+            return;
+        }
+
+        long key = ((long) compU << 32) | compV;
+        int existing = addedEdges.putIfAbsent(key, count, -1);
+        if (existing == -1) {
+            if (count == condU.length) {
+                int capacity = condU.length * 2;
+                condU = Arrays.copyOf(condU, capacity);
+                condV = Arrays.copyOf(condV, capacity);
+                condW = Arrays.copyOf(condW, capacity);
+            }
+            condU[count] = compU;
+            condV[count] = compV;
+            condW[count] = w;
+            count++;
+        } else if (weightPolicy == EdgeWeightPolicy.MIN) {
+            condW[existing] = Math.min(condW[existing], w);
+        } else if (weightPolicy == EdgeWeightPolicy.MAX) {
+            condW[existing] = Math.max(condW[existing], w);
+        }
+    }
+
+    // Duration of a component is the total duration of its members
+    private int[] componentWeights(int[] nodeWeights) {
+        if (nodeWeights == null) {
+            return null;
+        }
+        int[] sums = new int[components.count];
+        for (int node = 0; node < nodeWeights.length; node++) {
+            sums[componentOf[node]] += nodeWeights[node];
+        }
+        return sums;
     }
 
     public Graph getCondensationGraph() {
         return condensationGraph;
     }
 
+    public SCCResult getComponents() {
+        return components;
+    }
+
+    public EdgeWeightPolicy getWeightPolicy() {
+        return weightPolicy;
+    }
+
+    // Node -> component id, shared with the SCCResult
+    public int[] getComponentOf() {
+        return componentOf;
+    }
+
     public Map<Integer, Integer> getNodeToComponent() {
+        if (nodeToComponent == null) {
+            nodeToComponent = new HashMap<>();
+            for (int node = 0; node < componentOf.length; node++) {
+                nodeToComponent.put(node, componentOf[node]);
+            }
+        }
         return nodeToComponent;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+package org.yeah.graph.scc;
+
+// How parallel edges between two components are collapsed into one condensation edge
+public enum EdgeWeightPolicy {
+    FIRST,
+    MIN,
+    MAX
+}
@@ -0,0 +1,290 @@
+package org.yeah.graph.scc;
+
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.utils.Metrics;
+import org.yeah.utils.Parallel;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Forward-backward SCC decomposition: trims trivial components first, then splits the rest
+// around a pivot into FW ∩ BW (one SCC), FW \ SCC, BW \ SCC and the remainder, which are
+// independent subproblems solved as fork/join tasks
+public class ParallelSCC {
+    private static final int SEQUENTIAL_THRESHOLD = 2048;
+    private static final int TRIMMED = -1;
+
+    private final CSRGraph graph;
+    private final CSRGraph reverse;
+    private final Metrics metrics;
+    private final ForkJoinPool pool;
+
+    private int[] color;
+    private int[] componentOf;
+    private AtomicInteger nextColor;
+    private AtomicInteger nextComponent;
+
+    public ParallelSCC(Graph graph, Metrics metrics) {
+        this(graph.toCSR(), metrics, ForkJoinPool.commonPool());
+    }
+
+    public ParallelSCC(CSRGraph graph, Metrics metrics) {
+        this(graph, metrics, ForkJoinPool.commonPool());
+    }
+
+    public ParallelSCC(CSRGraph graph, Metrics metrics, ForkJoinPool pool) {
+        this.graph = graph;
+        this.reverse = graph.reverse();
+        this.metrics = metrics;
+        this.pool = pool;
+    }
+
+    public List<List<Integer>> findSCCs() {
+        return computeComponents().toLists();
+    }
+
+    public SCCResult computeComponents() {
+        int n = graph.n;
+        color = new int[n];
+        componentOf = new int[n];
+        Arrays.fill(componentOf, -1);
+        nextColor = new AtomicInteger(1);
+        nextComponent = new AtomicInteger(0);
+
+        trim();
+
+        // Everything that survived trimming forms the first subproblem with color 0
+        int remaining = 0;
+        int[] rest = new int[n];
+        for (int node = 0; node < n; node++) {
+            if (componentOf[node] == -1) {
+                rest[remaining++] = node;
+            }
+        }
+        if (remaining > 0) {
+            pool.invoke(new ForwardBackwardTask(Arrays.copyOf(rest, remaining), 0));
+        }
+
+        return SCCResult.fromComponentIds(renumber(), nextComponent.get());
+    }
+
+    // Repeatedly removes nodes without incoming or outgoing edges, each of which is an SCC on its own
+    private void trim() {
+        int n = graph.n;
+        AtomicIntegerArray inDegree = new AtomicIntegerArray(n);
+        AtomicIntegerArray outDegree = new AtomicIntegerArray(n);
+        AtomicIntegerArray removed = new AtomicIntegerArray(n);
+
+        Parallel.forRange(pool, 0, n, u -> {
+            int out = 0;
+            for (int e = graph.start(u), end = graph.end(u); e < end; e++) {
+                if (graph.target(e) != u) {
+                    out++;
+                }
+            }
+            outDegree.set(u, out);
+            int in = 0;
+            for (int e = reverse.start(u), end = reverse.end(u); e < end; e++) {
+                if (reverse.target(e) != u) {
+                    in++;
+                }
+            }
+            inDegree.set(u, in);
+        });
+
+        int[] initial = new int[n];
+        AtomicInteger frontierSize = new AtomicInteger();
+        Parallel.forRange(pool, 0, n, u -> {
+            if ((inDegree.get(u) == 0 || outDegree.get(u) == 0) && removed.compareAndSet(u, 0, 1)) {
+                initial[frontierSize.getAndIncrement()] = u;
+            }
+        });
+
+        int[] frontier = initial;
+        int[] next = new int[n];
+        int size = frontierSize.get();
+        while (size > 0) {
+            int[] current = frontier;
+            int[] upcoming = next;
+            AtomicInteger nextSize = new AtomicInteger();
+
+            Parallel.forRange(pool, 0, size, 256, i -> {
+                int u = current[i];
+                color[u] = TRIMMED;
+                componentOf[u] = nextComponent.getAndIncrement();
+                for (int e = graph.start(u), end = graph.end(u); e < end; e++) {
+                    int v = graph.target(e);
+                    if (v != u && removed.get(v) == 0 && inDegree.decrementAndGet(v) == 0
+                            && removed.compareAndSet(v, 0, 1)) {
+                        upcoming[nextSize.getAndIncrement()] = v;
+                    }
+                }
+                for (int e = reverse.start(u), end = reverse.end(u); e < end; e++) {
+                    int v = reverse.target(e);
+                    if (v != u && removed.get(v) == 0 && outDegree.decrementAndGet(v) == 0
+                            && removed.compareAndSet(v, 0, 1)) {
+                        upcoming[nextSize.getAndIncrement()] = v;
+                    }
+                }
+            });
+
+            metrics.addDfsVisits(size);
+            size = nextSize.get();
+            next = frontier;
+            frontier = upcoming;
+        }
+    }
+
+    // Component ids are handed out concurrently, so renumber them by smallest member for stable output
+    private int[] renumber() {
+        int count = nextComponent.get();
+        int[] mapping = new int[count];
+        Arrays.fill(mapping, -1);
+        int assigned = 0;
+        for (int node = 0; node < componentOf.length; node++) {
+            int c = componentOf[node];
+            if (mapping[c] == -1) {
+                mapping[c] = assigned++;
+            }
+            componentOf[node] = mapping[c];
+        }
+        return componentOf;
+    }
+
+    private class ForwardBackwardTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] nodes;
+        private final int nodeColor;
+
+        ForwardBackwardTask(int[] nodes, int nodeColor) {
+            this.nodes = nodes;
+            this.nodeColor = nodeColor;
+        }
+
+        @Override
+        protected void compute() {
+            // Small pieces are processed here from a local work list instead of being forked
+            Deque<ForwardBackwardTask> work = new ArrayDeque<>();
+            List<ForwardBackwardTask> forked = new ArrayList<>();
+            work.push(this);
+
+            while (!work.isEmpty()) {
+                ForwardBackwardTask task = work.pop();
+                for (ForwardBackwardTask part : task.split()) {
+                    if (part.nodes.length >= SEQUENTIAL_THRESHOLD) {
+                        part.fork();
+                        forked.add(part);
+                    } else {
+                        work.push(part);
+                    }
+                }
+            }
+
+            for (ForwardBackwardTask part : forked) {
+                part.join();
+            }
+        }
+
+        private List<ForwardBackwardTask> split() {
+            if (nodes.length == 0) {
+                return Collections.emptyList();
+            }
+            if (nodes.length == 1) {
+                componentOf[nodes[0]] = nextComponent.getAndIncrement();
+                metrics.addDfsVisits(1);
+                return Collections.emptyList();
+            }
+
+            int pivot = nodes[0];
+            int fwColor = nextColor.getAndIncrement();
+            int sccColor = nextColor.getAndIncrement();
+            int bwColor = nextColor.getAndIncrement();
+            int[] queue = new int[nodes.length];
+            long scanned = 0;
+
+            // Forward reach of the pivot inside this subproblem. Neighbors in other subproblems may be
+            // recolored concurrently, but their colors never equal ours, so reading them is harmless
+            int head = 0;
+            int tail = 0;
+            color[pivot] = fwColor;
+            queue[tail++] = pivot;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int e = graph.start(u), end = graph.end(u); e < end; e++) {
+                    scanned++;
+                    int v = graph.target(e);
+                    if (color[v] == nodeColor) {
+                        color[v] = fwColor;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+
+            // Backward reach: forward-reached nodes form the SCC, the others become the BW set
+            int component = nextComponent.getAndIncrement();
+            head = 0;
+            tail = 0;
+            color[pivot] = sccColor;
+            componentOf[pivot] = component;
+            queue[tail++] = pivot;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int e = reverse.start(u), end = reverse.end(u); e < end; e++) {
+                    scanned++;
+                    int v = reverse.target(e);
+                    if (color[v] == fwColor) {
+                        color[v] = sccColor;
+                        componentOf[v] = component;
+                        queue[tail++] = v;
+                    } else if (color[v] == nodeColor) {
+                        color[v] = bwColor;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+
+            metrics.addDfsVisits(nodes.length);
+            metrics.addDfsEdges(scanned);
+
+            int fwCount = 0;
+            int bwCount = 0;
+            int restCount = 0;
+            for (int node : nodes) {
+                int c = color[node];
+                if (c == fwColor) {
+                    fwCount++;
+                } else if (c == bwColor) {
+                    bwCount++;
+                } else if (c == nodeColor) {
+                    restCount++;
+                }
+            }
+
+            int[] fw = new int[fwCount];
+            int[] bw = new int[bwCount];
+            int[] rest = new int[restCount];
+            fwCount = 0;
+            bwCount = 0;
+            restCount = 0;
+            for (int node : nodes) {
+                int c = color[node];
+                if (c == fwColor) {
+                    fw[fwCount++] = node;
+                } else if (c == bwColor) {
+                    bw[bwCount++] = node;
+                } else if (c == nodeColor) {
+                    rest[restCount++] = node;
+                }
+            }
+
+            return Arrays.asList(
+                    new ForwardBackwardTask(fw, fwColor),
+                    new ForwardBackwardTask(bw, bwColor),
+                    new ForwardBackwardTask(rest, nodeColor));
+        }
+    }
+}
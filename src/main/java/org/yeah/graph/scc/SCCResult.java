@@ -0,0 +1,108 @@
+package org.yeah.graph.scc;
+
+import java.util.*;
+
+public class SCCResult {
+    public final int count;
+    private final int[] componentOf;
+    private final int[] offsets;
+    private final int[] nodes;
+
+    // Members of component c are nodes[offsets[c]] .. nodes[offsets[c + 1] - 1]
+    public SCCResult(int count, int[] componentOf, int[] offsets, int[] nodes) {
+        this.count = count;
+        this.componentOf = componentOf;
+        this.offsets = offsets;
+        this.nodes = nodes;
+    }
+
+    public static SCCResult fromComponentIds(int[] componentOf, int count) {
+        int n = componentOf.length;
+        int[] offsets = new int[count + 1];
+        for (int node = 0; node < n; node++) {
+            offsets[componentOf[node] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+
+        int[] cursor = Arrays.copyOf(offsets, count);
+        int[] nodes = new int[n];
+        for (int node = 0; node < n; node++) {
+            nodes[cursor[componentOf[node]]++] = node;
+        }
+        return new SCCResult(count, componentOf, offsets, nodes);
+    }
+
+    public static SCCResult fromLists(List<List<Integer>> sccs, int n) {
+        int[] componentOf = new int[n];
+        int[] offsets = new int[sccs.size() + 1];
+        int[] nodes = new int[n];
+        int filled = 0;
+        for (int c = 0; c < sccs.size(); c++) {
+            for (int node : sccs.get(c)) {
+                componentOf[node] = c;
+                nodes[filled++] = node;
+            }
+            offsets[c + 1] = filled;
+        }
+        return new SCCResult(sccs.size(), componentOf, offsets, nodes);
+    }
+
+    public int nodeCount() {
+        return componentOf.length;
+    }
+
+    public int componentOf(int node) {
+        return componentOf[node];
+    }
+
+    public int size(int component) {
+        return offsets[component + 1] - offsets[component];
+    }
+
+    public int start(int component) {
+        return offsets[component];
+    }
+
+    public int end(int component) {
+        return offsets[component + 1];
+    }
+
+    public int node(int position) {
+        return nodes[position];
+    }
+
+    // Shared arrays, callers must not modify them
+    public int[] componentArray() {
+        return componentOf;
+    }
+
+    public int[] offsetArray() {
+        return offsets;
+    }
+
+    public int[] nodeArray() {
+        return nodes;
+    }
+
+    public List<List<Integer>> toLists() {
+        List<List<Integer>> sccs = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            List<Integer> scc = new ArrayList<>(size(c));
+            for (int i = offsets[c]; i < offsets[c + 1]; i++) {
+                scc.add(nodes[i]);
+            }
+            sccs.add(scc);
+        }
+        return sccs;
+    }
+
+    public List<Integer> sizes() {
+        List<Integer> sizes = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            sizes.add(size(c));
+        }
+        return sizes;
+    }
+}
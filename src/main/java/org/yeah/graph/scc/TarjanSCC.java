@@ -1,84 +1,125 @@
 package org.yeah.graph.scc;
 
+import org.yeah.model.CSRGraph;
 import org.yeah.model.Graph;
-import org.yeah.model.Edge;
 import org.yeah.utils.Metrics;
 import java.util.*;
 
 public class TarjanSCC {
-    private final Graph graph;
+    private final CSRGraph graph;
     private final Metrics metrics;
-    private int index;
-    private int[] indices;
-    private int[] lowlinks;
-    private boolean[] onStack;
-    private Stack<Integer> stack;
-    private List<List<Integer>> sccs;
+    private SCCResult result;
 
+    // Uses the graph's cached CSR (and keeps its reverse index); call buildGraph() after editing edges
     public TarjanSCC(Graph graph, Metrics metrics) {
+        this.graph = graph.toCSR();
+        this.metrics = metrics;
+    }
+
+    public TarjanSCC(CSRGraph graph, Metrics metrics) {
         this.graph = graph;
         this.metrics = metrics;
-        this.graph.buildGraph();
     }
 
     public List<List<Integer>> findSCCs() {
+        return computeComponents().toLists();
+    }
+
+    // Iterative Tarjan: an explicit call stack with one edge cursor per frame replaces recursion,
+    // so the depth of the DFS is limited by heap memory instead of the thread stack
+    public SCCResult computeComponents() {
         int n = graph.n;
-        indices = new int[n];
-        lowlinks = new int[n];
-        onStack = new boolean[n];
-        stack = new Stack<>();
-        sccs = new ArrayList<>();
-        index = 0;
+        int[] indices = new int[n];
+        int[] lowlinks = new int[n];
+        int[] componentOf = new int[n];
+        int[] sccStack = new int[n];
+        int[] callStack = new int[n];
+        int[] edgeCursor = new int[n];
+        int[] offsets = new int[n + 1];
+        int[] nodes = new int[n];
 
         Arrays.fill(indices, -1);
+        Arrays.fill(componentOf, -1);
+
+        int index = 0;
+        int sccTop = 0;
+        int count = 0;
+        int filled = 0;
+        long visits = 0;
+        long edges = 0;
 
-        for (int i = 0; i < n; i++) {
-            if (indices[i] == -1) {
-                strongConnect(i);
+        for (int root = 0; root < n; root++) {
+            if (indices[root] != -1) {
+                continue;
             }
-        }
 
-        return sccs;
-    }
+            int depth = 0;
+            callStack[0] = root;
+            edgeCursor[0] = graph.start(root);
+            indices[root] = index;
+            lowlinks[root] = index;
+            index++;
+            sccStack[sccTop++] = root;
+            visits++;
+
+            while (depth >= 0) {
+                int v = callStack[depth];
+                int e = edgeCursor[depth];
 
-    private void strongConnect(int v) {
-        metrics.dfsVisits++;
+                if (e < graph.end(v)) {
+                    edgeCursor[depth] = e + 1;
+                    edges++;
+                    int w = graph.target(e);
 
-        indices[v] = index;
-        lowlinks[v] = index;
-        index++;
-        stack.push(v);
-        onStack[v] = true;
+                    if (indices[w] == -1) {
+                        // Descend into w
+                        indices[w] = index;
+                        lowlinks[w] = index;
+                        index++;
+                        sccStack[sccTop++] = w;
+                        visits++;
+                        depth++;
+                        callStack[depth] = w;
+                        edgeCursor[depth] = graph.start(w);
+                    } else if (componentOf[w] == -1) {
+                        // Visited and not yet assigned means w is still on the SCC stack
+                        lowlinks[v] = Math.min(lowlinks[v], indices[w]);
+                    }
+                    continue;
+                }
 
-        for (Edge edge : graph.getNeighbors(v)) {
-            metrics.dfsEdges++;
-            int w = edge.v;
+                if (lowlinks[v] == indices[v]) {
+                    int w;
+                    do {
+                        w = sccStack[--sccTop];
+                        componentOf[w] = count;
+                        nodes[filled++] = w;
+                    } while (w != v);
+                    count++;
+                    offsets[count] = filled;
+                }
 
-            if (indices[w] == -1) {
-                strongConnect(w);
-                lowlinks[v] = Math.min(lowlinks[v], lowlinks[w]);
-            } else if (onStack[w]) {
-                lowlinks[v] = Math.min(lowlinks[v], indices[w]);
+                // Return to the parent frame
+                depth--;
+                if (depth >= 0) {
+                    int parent = callStack[depth];
+                    lowlinks[parent] = Math.min(lowlinks[parent], lowlinks[v]);
+                }
             }
         }
 
-        if (lowlinks[v] == indices[v]) {
-            List<Integer> scc = new ArrayList<>();
-            int w;
-            do {
-                w = stack.pop();
-                onStack[w] = false;
-                scc.add(w);
-            } while (w != v);
-            sccs.add(scc);
-        }
+        metrics.addDfsVisits(visits);
+        metrics.addDfsEdges(edges);
+
+        result = new SCCResult(count, componentOf, Arrays.copyOf(offsets, count + 1), nodes);
+        return result;
+    }
+
+    public SCCResult getResult() {
+        return result;
     }
 
     public List<Integer> getSccSizes() {
-        List<Integer> sizes = new ArrayList<>();
-        for (List<Integer> scc : sccs) {
-            sizes.add(scc.size());
-        }
-        return sizes;
+        return result.sizes();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,144 @@
+package org.yeah.graph.schedule;
+
+import org.yeah.graph.dagsp.DAGShortestPaths;
+import org.yeah.graph.topo.TopologicalSort;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.utils.LongKeyHeap;
+import org.yeah.utils.Metrics;
+import java.util.*;
+
+// List scheduling of a task DAG (normally the condensation) on a fixed number of identical workers.
+// Whenever a worker is free it takes the ready task with the longest remaining path to a sink
+// (bottom level, from DAGShortestPaths), ties going to the smaller task id. Time only advances to
+// the next task completion, so the simulation costs O((n + m) log n) whatever the durations are
+public class ListScheduler {
+    private final CSRGraph graph;
+    private final Metrics metrics;
+
+    public ListScheduler(Graph graph, Metrics metrics) {
+        this(graph.toCSR(), metrics);
+    }
+
+    public ListScheduler(CSRGraph graph, Metrics metrics) {
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    public static class Schedule {
+        public final int workers;
+        public final long[] start;
+        public final long[] end;
+        public final int[] worker;
+        public final long makespan;
+        // Longest chain of durations; no schedule on any number of workers can beat it
+        public final long criticalPathLength;
+        public final long totalWork;
+
+        Schedule(int workers, long[] start, long[] end, int[] worker, long makespan,
+                 long criticalPathLength, long totalWork) {
+            this.workers = workers;
+            this.start = start;
+            this.end = end;
+            this.worker = worker;
+            this.makespan = makespan;
+            this.criticalPathLength = criticalPathLength;
+            this.totalWork = totalWork;
+        }
+
+        // Share of worker time spent on tasks
+        public double utilization() {
+            return makespan == 0 ? 1.0 : (double) totalWork / ((double) makespan * workers);
+        }
+    }
+
+    // Durations from the graph's node weights, or one time unit per task when it has none
+    public Schedule schedule(int workers) {
+        int[] durations = graph.hasNodeWeights() ? graph.nodeWeightArray() : unitDurations(graph.n);
+        return schedule(durations, workers);
+    }
+
+    public Schedule schedule(int[] durations, int workers) {
+        int n = graph.n;
+        if (workers < 1) {
+            throw new IllegalArgumentException("Need at least one worker, got " + workers);
+        }
+        if (durations.length != n) {
+            throw new IllegalArgumentException("Expected " + n + " durations, got " + durations.length);
+        }
+        long totalWork = 0;
+        for (int d : durations) {
+            if (d < 0) {
+                throw new IllegalArgumentException("Negative duration " + d);
+            }
+            totalWork += d;
+        }
+
+        int[] order = new TopologicalSort(graph, metrics).topologicalOrderArray();
+        if (order.length < n) {
+            throw new IllegalArgumentException("Cannot schedule a graph with a cycle");
+        }
+        long[] priority = new DAGShortestPaths(graph, metrics).bottomLevels(durations, order);
+        long criticalPathLength = 0;
+        for (long level : priority) {
+            criticalPathLength = Math.max(criticalPathLength, level);
+        }
+
+        int[] waiting = new int[n];
+        for (int e = 0, m = graph.edgeCount(); e < m; e++) {
+            waiting[graph.target(e)]++;
+        }
+
+        // Ready tasks by highest bottom level, running tasks by end time, idle workers by id
+        LongKeyHeap ready = new LongKeyHeap(Math.min(n, 1 << 16));
+        LongKeyHeap running = new LongKeyHeap(Math.min(workers, n));
+        LongKeyHeap idle = new LongKeyHeap(Math.min(workers, n));
+        for (int task = 0; task < n; task++) {
+            if (waiting[task] == 0) {
+                ready.push(task, -priority[task]);
+            }
+        }
+        // Workers beyond n would never get a task
+        for (int w = 0; w < Math.min(workers, n); w++) {
+            idle.push(w, w);
+        }
+
+        long[] start = new long[n];
+        long[] end = new long[n];
+        int[] worker = new int[n];
+        long now = 0;
+        int finished = 0;
+        while (finished < n) {
+            while (!ready.isEmpty() && !idle.isEmpty()) {
+                int task = ready.pop();
+                int w = idle.pop();
+                start[task] = now;
+                end[task] = now + durations[task];
+                worker[task] = w;
+                running.push(task, end[task]);
+            }
+
+            // Everything ending at the next completion time frees its worker and releases successors
+            now = running.peekKey();
+            while (!running.isEmpty() && running.peekKey() == now) {
+                int task = running.pop();
+                idle.push(worker[task], worker[task]);
+                finished++;
+                for (int e = graph.start(task), stop = graph.end(task); e < stop; e++) {
+                    int next = graph.target(e);
+                    if (--waiting[next] == 0) {
+                        ready.push(next, -priority[next]);
+                    }
+                }
+            }
+        }
+
+        return new Schedule(workers, start, end, worker, now, criticalPathLength, totalWork);
+    }
+
+    private static int[] unitDurations(int n) {
+        int[] durations = new int[n];
+        Arrays.fill(durations, 1);
+        return durations;
+    }
+}
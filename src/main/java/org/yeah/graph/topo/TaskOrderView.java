@@ -0,0 +1,135 @@
+package org.yeah.graph.topo;
+
+import org.yeah.graph.scc.SCCResult;
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+// Task order read straight from the component order and the SCC member arrays, so nothing is copied
+// or boxed until a position is asked for. Only a prefix sum over the component order is built:
+// position p falls in the last component whose first position is <= p
+public class TaskOrderView extends AbstractList<Integer> implements RandomAccess {
+    private final SCCResult components;
+    private final int[] componentOrder;
+    // firstPosition[i] is the task position of the first member of componentOrder[i]; one extra entry holds the size
+    private final int[] firstPosition;
+
+    public TaskOrderView(int[] componentOrder, SCCResult components) {
+        this.components = components;
+        this.componentOrder = componentOrder;
+        this.firstPosition = new int[componentOrder.length + 1];
+        for (int i = 0; i < componentOrder.length; i++) {
+            firstPosition[i + 1] = firstPosition[i] + components.size(componentOrder[i]);
+        }
+    }
+
+    public TaskOrderView(List<Integer> componentOrder, SCCResult components) {
+        this(componentOrder.stream().mapToInt(Integer::intValue).toArray(), components);
+    }
+
+    @Override
+    public int size() {
+        return firstPosition[componentOrder.length];
+    }
+
+    @Override
+    public Integer get(int position) {
+        return getInt(position);
+    }
+
+    public int getInt(int position) {
+        if (position < 0 || position >= size()) {
+            throw new IndexOutOfBoundsException("Position " + position + " outside task order of size " + size());
+        }
+        int i = componentIndex(position);
+        return components.node(components.start(componentOrder[i]) + position - firstPosition[i]);
+    }
+
+    // Index into the component order of the component holding a task position
+    public int componentIndex(int position) {
+        int lo = 0;
+        int hi = componentOrder.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (firstPosition[mid] <= position) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    // Walks positions [from, size) without boxing
+    public PrimitiveIterator.OfInt intIterator(int from) {
+        if (from < 0 || from > size()) {
+            throw new IndexOutOfBoundsException("Position " + from + " outside task order of size " + size());
+        }
+        return new PrimitiveIterator.OfInt() {
+            int position = from;
+            int index = from < size() ? componentIndex(from) : componentOrder.length;
+            int member = index < componentOrder.length
+                    ? components.start(componentOrder[index]) + from - firstPosition[index] : 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public int nextInt() {
+                if (position >= size()) {
+                    throw new NoSuchElementException();
+                }
+                // Empty components never occur, so one step moves past the end of the current one
+                if (position == firstPosition[index + 1]) {
+                    index++;
+                    member = components.start(componentOrder[index]);
+                }
+                position++;
+                return components.node(member++);
+            }
+        };
+    }
+
+    public PrimitiveIterator.OfInt intIterator() {
+        return intIterator(0);
+    }
+
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < componentOrder.length; i++) {
+            int c = componentOrder[i];
+            for (int p = components.start(c); p < components.end(c); p++) {
+                action.accept(components.node(p));
+            }
+        }
+    }
+
+    public IntStream intStream() {
+        return StreamSupport.intStream(Spliterators.spliterator(intIterator(), size(),
+                Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    // Copies positions [from, to) into a fresh array, e.g. one page for display
+    public int[] toIntArray(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") outside task order of size " + size());
+        }
+        int[] page = new int[to - from];
+        PrimitiveIterator.OfInt it = intIterator(from);
+        for (int i = 0; i < page.length; i++) {
+            page[i] = it.nextInt();
+        }
+        return page;
+    }
+
+    public int[] toIntArray() {
+        return toIntArray(0, size());
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return intIterator();
+    }
+}
@@ -0,0 +1,64 @@
+package org.yeah.graph.topo;
+
+import java.util.*;
+
+public class TopologicalLevels {
+    public final int levelCount;
+    private final int[] order;
+    private final int[] level;
+    private final int[] levelOffsets;
+
+    // Nodes of wave k are order[levelOffsets[k]] .. order[levelOffsets[k + 1] - 1]
+    public TopologicalLevels(int[] order, int[] level, int[] levelOffsets) {
+        this.levelCount = levelOffsets.length - 1;
+        this.order = order;
+        this.level = level;
+        this.levelOffsets = levelOffsets;
+    }
+
+    // Number of ordered nodes; smaller than the graph size when the graph had a cycle
+    public int size() {
+        return levelOffsets[levelCount];
+    }
+
+    public boolean isComplete() {
+        return size() == level.length;
+    }
+
+    // Wave of a node, or -1 if it sits on or behind a cycle
+    public int levelOf(int node) {
+        return level[node];
+    }
+
+    public int levelStart(int k) {
+        return levelOffsets[k];
+    }
+
+    public int levelEnd(int k) {
+        return levelOffsets[k + 1];
+    }
+
+    public int node(int position) {
+        return order[position];
+    }
+
+    public int[] orderArray() {
+        return Arrays.copyOf(order, size());
+    }
+
+    public List<Integer> getOrder() {
+        List<Integer> result = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            result.add(order[i]);
+        }
+        return result;
+    }
+
+    public List<Integer> getLevel(int k) {
+        List<Integer> result = new ArrayList<>(levelEnd(k) - levelStart(k));
+        for (int i = levelStart(k); i < levelEnd(k); i++) {
+            result.add(order[i]);
+        }
+        return result;
+    }
+}
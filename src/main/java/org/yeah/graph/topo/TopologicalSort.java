@@ -1,52 +1,163 @@
 package org.yeah.graph.topo;
 
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.model.CSRGraph;
 import org.yeah.model.Graph;
-import org.yeah.model.Edge;
 import org.yeah.utils.Metrics;
+import org.yeah.utils.Parallel;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 public class TopologicalSort {
-    private Graph graph;
+    private CSRGraph graph;
     private Metrics metrics;
 
     public TopologicalSort(Graph graph, Metrics metrics) {
+        this(graph.toCSR(), metrics);
+    }
+
+    public TopologicalSort(CSRGraph graph, Metrics metrics) {
         this.graph = graph;
         this.metrics = metrics;
     }
 
     public List<Integer> topologicalOrderKahn() {
+        int[] order = topologicalOrderArray();
+        List<Integer> result = new ArrayList<>(order.length);
+        for (int node : order) {
+            result.add(node);
+        }
+        return result;
+    }
+
+    public int[] topologicalOrderArray() {
         int n = graph.n;
-        int[] inDegree = new int[n];
+        int[] inDegree = computeInDegrees();
 
-        // Calculate in-degrees
-        for (Edge edge : graph.edges) {
-            inDegree[edge.v]++;
+        // The result array doubles as the FIFO queue: [head, tail) are queued, [0, head) are done
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0) {
+                queue[tail++] = i;
+            }
         }
 
-        Queue<Integer> queue = new LinkedList<>();
+        while (head < tail) {
+            int node = queue[head++];
+
+            for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                int v = graph.target(e);
+                inDegree[v]--;
+                if (inDegree[v] == 0) {
+                    queue[tail++] = v;
+                }
+            }
+        }
+
+        metrics.addKahnPushes(tail);
+        metrics.addKahnPops(head);
+
+        return tail == n ? queue : Arrays.copyOf(queue, tail);
+    }
+
+    // Frontier-based Kahn: wave k holds the nodes whose longest chain of predecessors has k edges
+    public TopologicalLevels topologicalLevels() {
+        int n = graph.n;
+        int[] inDegree = computeInDegrees();
+        int[] order = new int[n];
+        int[] level = new int[n];
+        Arrays.fill(level, -1);
+
+        int tail = 0;
         for (int i = 0; i < n; i++) {
             if (inDegree[i] == 0) {
-                queue.offer(i);
-                metrics.kahnPushes++;
+                level[i] = 0;
+                order[tail++] = i;
             }
         }
 
-        List<Integer> result = new ArrayList<>();
-        while (!queue.isEmpty()) {
-            int node = queue.poll();
-            metrics.kahnPops++;
-            result.add(node);
-
-            for (Edge edge : graph.getNeighbors(node)) {
-                inDegree[edge.v]--;
-                if (inDegree[edge.v] == 0) {
-                    queue.offer(edge.v);
-                    metrics.kahnPushes++;
+        int[] levelOffsets = new int[n + 1];
+        int levelCount = 0;
+        int levelStart = 0;
+        while (levelStart < tail) {
+            int levelEnd = tail;
+            levelOffsets[levelCount + 1] = levelEnd;
+            for (int i = levelStart; i < levelEnd; i++) {
+                int node = order[i];
+                for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                    int v = graph.target(e);
+                    if (--inDegree[v] == 0) {
+                        level[v] = levelCount + 1;
+                        order[tail++] = v;
+                    }
                 }
             }
+            Arrays.sort(order, levelEnd, tail);
+            levelCount++;
+            levelStart = levelEnd;
         }
 
-        return result;
+        metrics.addKahnPushes(tail);
+        metrics.addKahnPops(tail);
+
+        return new TopologicalLevels(order, level, Arrays.copyOf(levelOffsets, levelCount + 1));
+    }
+
+    // Same waves as topologicalLevels(), with every wave expanded in parallel using atomic in-degrees
+    public TopologicalLevels topologicalLevelsParallel(ForkJoinPool pool) {
+        int n = graph.n;
+        int[] initialDegrees = computeInDegrees();
+        AtomicIntegerArray inDegree = new AtomicIntegerArray(initialDegrees);
+        int[] order = new int[n];
+        int[] level = new int[n];
+        Arrays.fill(level, -1);
+
+        int initial = 0;
+        for (int i = 0; i < n; i++) {
+            if (initialDegrees[i] == 0) {
+                level[i] = 0;
+                order[initial++] = i;
+            }
+        }
+
+        AtomicInteger tail = new AtomicInteger(initial);
+        int[] levelOffsets = new int[n + 1];
+        int levelCount = 0;
+        int levelStart = 0;
+        while (levelStart < tail.get()) {
+            int levelEnd = tail.get();
+            int nextLevel = levelCount + 1;
+            levelOffsets[nextLevel] = levelEnd;
+
+            Parallel.forRange(pool, levelStart, levelEnd, 64, i -> {
+                int node = order[i];
+                for (int e = graph.start(node), end = graph.end(node); e < end; e++) {
+                    int v = graph.target(e);
+                    // Exactly one thread sees the count reach zero, so each node is queued once
+                    if (inDegree.decrementAndGet(v) == 0) {
+                        level[v] = nextLevel;
+                        order[tail.getAndIncrement()] = v;
+                    }
+                }
+            });
+
+            Arrays.sort(order, levelEnd, tail.get());
+            levelCount++;
+            levelStart = levelEnd;
+        }
+
+        metrics.addKahnPushes(tail.get());
+        metrics.addKahnPops(tail.get());
+
+        return new TopologicalLevels(order, level, Arrays.copyOf(levelOffsets, levelCount + 1));
+    }
+
+    private int[] computeInDegrees() {
+        return graph.inDegrees();
     }
 
     public List<Integer> getOriginalTaskOrder(List<Integer> componentOrder,
@@ -60,4 +171,9 @@ public class TopologicalSort {
 
         return taskOrder;
     }
-}
\ No newline at end of file
+
+    // Same order as getOriginalTaskOrder, expanded lazily from the SCC arrays
+    public TaskOrderView getTaskOrderView(List<Integer> componentOrder, SCCResult components) {
+        return new TaskOrderView(componentOrder, components);
+    }
+}
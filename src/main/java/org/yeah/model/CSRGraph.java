@@ -0,0 +1,367 @@
+package org.yeah.model;
+
+import java.util.*;
+
+public class CSRGraph {
+    public final int n;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    // Per-node durations; null when the graph only has edge weights
+    private int[] nodeWeights;
+    private String weightModel = "edge";
+    // Source node stored with the graph, 0 when it has none
+    private int source;
+    // Largest absolute edge weight, noted while the arrays are filled; -1 until known
+    private volatile long maxAbsWeight = -1;
+    private long maxAbsNodeWeight;
+    // Cached reversed graph; the reverse of the reverse is this graph again
+    private CSRGraph reverse;
+
+    public CSRGraph(int n, int[] offsets, int[] targets, int[] weights) {
+        this.n = n;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    // For subclasses that keep the arrays somewhere other than the heap and override the accessors
+    protected CSRGraph(int n) {
+        this(n, null, null, null);
+    }
+
+    public static CSRGraph fromGraph(Graph graph) {
+        return fromEdgeList(graph, false);
+    }
+
+    // Edges grouped by target instead of source: the reverse graph, straight from the edge arrays
+    static CSRGraph reverseFromGraph(Graph graph) {
+        return fromEdgeList(graph, true);
+    }
+
+    // Both directions with one scan to count degrees and one to fill, linked as each other's reverse
+    static CSRGraph fromGraphWithReverse(Graph graph) {
+        EdgeList edges = graph.edges;
+        int n = graph.n;
+        int m = edges.size();
+        int[] offsets = new int[n + 1];
+        int[] revOffsets = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            offsets[edges.u(i) + 1]++;
+            revOffsets[edges.v(i) + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+            revOffsets[i + 1] += revOffsets[i];
+        }
+
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        int[] revTargets = new int[m];
+        int[] revWeights = new int[m];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        int[] revCursor = Arrays.copyOf(revOffsets, n);
+        long maxAbs = 0;
+        for (int i = 0; i < m; i++) {
+            int u = edges.u(i);
+            int v = edges.v(i);
+            int w = edges.w(i);
+            int pos = cursor[u]++;
+            targets[pos] = v;
+            weights[pos] = w;
+            int revPos = revCursor[v]++;
+            revTargets[revPos] = u;
+            revWeights[revPos] = w;
+            maxAbs = Math.max(maxAbs, Math.abs((long) w));
+        }
+
+        CSRGraph forward = withGraphWeights(new CSRGraph(n, offsets, targets, weights), graph);
+        CSRGraph reversed = withGraphWeights(new CSRGraph(n, revOffsets, revTargets, revWeights), graph);
+        forward.maxAbsWeight = maxAbs;
+        reversed.maxAbsWeight = maxAbs;
+        forward.link(reversed);
+        return forward;
+    }
+
+    // Counting sort of the edge arrays by source, or by target when reversed
+    private static CSRGraph fromEdgeList(Graph graph, boolean reversed) {
+        EdgeList edges = graph.edges;
+        int n = graph.n;
+        int m = edges.size();
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+
+        // Same counting sort as fromEdges, reading the edge arrays without materializing Edge objects
+        for (int i = 0; i < m; i++) {
+            offsets[(reversed ? edges.v(i) : edges.u(i)) + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] cursor = Arrays.copyOf(offsets, n);
+        long maxAbs = 0;
+        for (int i = 0; i < m; i++) {
+            int pos = cursor[reversed ? edges.v(i) : edges.u(i)]++;
+            targets[pos] = reversed ? edges.u(i) : edges.v(i);
+            weights[pos] = edges.w(i);
+            maxAbs = Math.max(maxAbs, Math.abs((long) weights[pos]));
+        }
+
+        CSRGraph csr = withGraphWeights(new CSRGraph(n, offsets, targets, weights), graph);
+        csr.maxAbsWeight = maxAbs;
+        return csr;
+    }
+
+    private static CSRGraph withGraphWeights(CSRGraph csr, Graph graph) {
+        csr.setNodeWeights(graph.nodeWeights);
+        csr.setWeightModel(graph.weightModel);
+        csr.setSource(graph.source);
+        return csr;
+    }
+
+    public static CSRGraph fromEdges(int n, List<Edge> edges) {
+        int m = edges.size();
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+
+        // Count out-degrees, then turn them into start offsets
+        for (Edge edge : edges) {
+            offsets[edge.u + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        // Stable fill keeps the same neighbor order as Graph.getNeighbors
+        int[] cursor = new int[n];
+        System.arraycopy(offsets, 0, cursor, 0, n);
+        long maxAbs = 0;
+        for (Edge edge : edges) {
+            int pos = cursor[edge.u]++;
+            targets[pos] = edge.v;
+            weights[pos] = edge.w;
+            maxAbs = Math.max(maxAbs, Math.abs((long) edge.w));
+        }
+
+        CSRGraph csr = new CSRGraph(n, offsets, targets, weights);
+        csr.maxAbsWeight = maxAbs;
+        return csr;
+    }
+
+    public int edgeCount() {
+        return offsets[n];
+    }
+
+    // Edges of node u are the indices [start(u), end(u))
+    public int start(int u) {
+        return offsets[u];
+    }
+
+    public int end(int u) {
+        return offsets[u + 1];
+    }
+
+    public int degree(int u) {
+        return end(u) - start(u);
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public int weight(int edge) {
+        return weights[edge];
+    }
+
+    public boolean hasNodeWeights() {
+        return nodeWeights != null;
+    }
+
+    public int nodeWeight(int u) {
+        return nodeWeights[u];
+    }
+
+    // Shared array, callers must not modify it; null without node weights
+    public int[] nodeWeightArray() {
+        return nodeWeights;
+    }
+
+    public void setNodeWeights(int[] nodeWeights) {
+        if (nodeWeights != null && nodeWeights.length != n) {
+            throw new IllegalArgumentException("Expected " + n + " node weights, got " + nodeWeights.length);
+        }
+        long maxAbs = 0;
+        if (nodeWeights != null) {
+            for (int w : nodeWeights) {
+                maxAbs = Math.max(maxAbs, Math.abs((long) w));
+            }
+        }
+        this.nodeWeights = nodeWeights;
+        this.maxAbsNodeWeight = maxAbs;
+    }
+
+    // Largest |weight| over all edges. Graphs built from edge lists know it already; graphs handed
+    // ready-made arrays (or mapped from disk) scan their weights once on first call
+    public long maxAbsWeight() {
+        long known = maxAbsWeight;
+        if (known < 0) {
+            known = 0;
+            for (int e = 0, m = edgeCount(); e < m; e++) {
+                known = Math.max(known, Math.abs((long) weight(e)));
+            }
+            maxAbsWeight = known;
+        }
+        return known;
+    }
+
+    // Largest |duration| among the node weights, 0 without them
+    public long maxAbsNodeWeight() {
+        return maxAbsNodeWeight;
+    }
+
+    // "edge" sums edge weights along a path, "node" sums the durations of the nodes on it
+    public String getWeightModel() {
+        return weightModel;
+    }
+
+    public void setWeightModel(String weightModel) {
+        this.weightModel = weightModel == null ? "edge" : weightModel;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public void setSource(int source) {
+        this.source = source;
+    }
+
+    public boolean usesNodeWeights() {
+        return "node".equals(weightModel);
+    }
+
+    // Reversed graph built on first use and kept, so every consumer of predecessors shares one copy.
+    // Predecessors come in no particular order
+    public synchronized CSRGraph reverse() {
+        if (reverse == null) {
+            link(transpose());
+        }
+        return reverse;
+    }
+
+    public synchronized boolean hasReverse() {
+        return reverse != null;
+    }
+
+    synchronized void link(CSRGraph reversed) {
+        reverse = reversed;
+        reversed.reverse = this;
+    }
+
+    // From the reverse graph when it is already there, otherwise one scan over the targets
+    public int[] inDegrees() {
+        int[] inDegree = new int[n];
+        if (hasReverse()) {
+            CSRGraph reversed = reverse();
+            for (int u = 0; u < n; u++) {
+                inDegree[u] = reversed.degree(u);
+            }
+        } else {
+            for (int e = 0, m = edgeCount(); e < m; e++) {
+                inDegree[target(e)]++;
+            }
+        }
+        return inDegree;
+    }
+
+    // Nodes reachable from node, nearest first, node itself left out. Only the reached part of the
+    // graph is visited
+    public int[] descendants(int node) {
+        return reach(this, node);
+    }
+
+    // Nodes that can reach node ("what blocks it"), nearest first, walked on the reverse graph
+    public int[] ancestors(int node) {
+        return reach(reverse(), node);
+    }
+
+    private static int[] reach(CSRGraph graph, int node) {
+        BitSet seen = new BitSet();
+        IntQueue queue = new IntQueue();
+        seen.set(node);
+        queue.add(node);
+        for (int head = 0; head < queue.size; head++) {
+            int u = queue.items[head];
+            for (int e = graph.start(u), end = graph.end(u); e < end; e++) {
+                int v = graph.target(e);
+                if (!seen.get(v)) {
+                    seen.set(v);
+                    queue.add(v);
+                }
+            }
+        }
+        return Arrays.copyOfRange(queue.items, 1, queue.size);
+    }
+
+    // Growable BFS queue; model classes do not depend on utils
+    private static class IntQueue {
+        int[] items = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+    }
+
+    // Same nodes with every edge reversed; weights follow their edges
+    public CSRGraph transpose() {
+        int m = edgeCount();
+        int[] revOffsets = new int[n + 1];
+        int[] revTargets = new int[m];
+        int[] revWeights = new int[m];
+
+        for (int e = 0; e < m; e++) {
+            revOffsets[target(e) + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            revOffsets[i + 1] += revOffsets[i];
+        }
+
+        int[] cursor = new int[n];
+        System.arraycopy(revOffsets, 0, cursor, 0, n);
+        for (int u = 0; u < n; u++) {
+            for (int e = start(u), end = end(u); e < end; e++) {
+                int pos = cursor[target(e)]++;
+                revTargets[pos] = u;
+                revWeights[pos] = weight(e);
+            }
+        }
+
+        CSRGraph reversed = new CSRGraph(n, revOffsets, revTargets, revWeights);
+        reversed.setNodeWeights(nodeWeights);
+        reversed.setWeightModel(weightModel);
+        reversed.setSource(source);
+        reversed.maxAbsWeight = maxAbsWeight;
+        return reversed;
+    }
+
+    public Graph toGraph() {
+        Graph graph = new Graph();
+        graph.n = n;
+        graph.weightModel = weightModel;
+        graph.source = source;
+        graph.nodeWeights = nodeWeights;
+        for (int u = 0; u < n; u++) {
+            for (int e = start(u), end = end(u); e < end; e++) {
+                graph.edges.add(new Edge(u, target(e), weight(e)));
+            }
+        }
+        graph.buildGraph();
+        return graph;
+    }
+}
@@ -0,0 +1,145 @@
+package org.yeah.model;
+
+import java.util.*;
+
+// Edges kept as three parallel int arrays (12 bytes per edge) instead of one Edge object each.
+// get() materializes a fresh Edge, so changing its fields does not touch the list; use set() or
+// setWeight() for that. Hot loops should read u(i), v(i) and w(i) directly
+public class EdgeList extends AbstractList<Edge> implements RandomAccess {
+    private int[] us;
+    private int[] vs;
+    private int[] ws;
+    private int size;
+
+    public EdgeList() {
+        this(16);
+    }
+
+    public EdgeList(int capacity) {
+        capacity = Math.max(capacity, 1);
+        us = new int[capacity];
+        vs = new int[capacity];
+        ws = new int[capacity];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int u(int i) {
+        checkIndex(i);
+        return us[i];
+    }
+
+    public int v(int i) {
+        checkIndex(i);
+        return vs[i];
+    }
+
+    public int w(int i) {
+        checkIndex(i);
+        return ws[i];
+    }
+
+    @Override
+    public Edge get(int i) {
+        checkIndex(i);
+        return new Edge(us[i], vs[i], ws[i]);
+    }
+
+    public void add(int u, int v, int w) {
+        if (size == us.length) {
+            grow(size + 1);
+        }
+        us[size] = u;
+        vs[size] = v;
+        ws[size] = w;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public boolean add(Edge edge) {
+        add(edge.u, edge.v, edge.w);
+        return true;
+    }
+
+    @Override
+    public void add(int i, Edge edge) {
+        if (i < 0 || i > size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        }
+        if (size == us.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(us, i, us, i + 1, size - i);
+        System.arraycopy(vs, i, vs, i + 1, size - i);
+        System.arraycopy(ws, i, ws, i + 1, size - i);
+        us[i] = edge.u;
+        vs[i] = edge.v;
+        ws[i] = edge.w;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Edge set(int i, Edge edge) {
+        Edge previous = get(i);
+        us[i] = edge.u;
+        vs[i] = edge.v;
+        ws[i] = edge.w;
+        return previous;
+    }
+
+    public void setWeight(int i, int w) {
+        checkIndex(i);
+        ws[i] = w;
+    }
+
+    @Override
+    public Edge remove(int i) {
+        Edge removed = get(i);
+        int tail = size - i - 1;
+        System.arraycopy(us, i + 1, us, i, tail);
+        System.arraycopy(vs, i + 1, vs, i, tail);
+        System.arraycopy(ws, i + 1, ws, i, tail);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > us.length) {
+            grow(capacity);
+        }
+    }
+
+    // Drops the spare capacity left by growth, e.g. once loading is done
+    public void trimToSize() {
+        if (size < us.length) {
+            us = Arrays.copyOf(us, Math.max(size, 1));
+            vs = Arrays.copyOf(vs, us.length);
+            ws = Arrays.copyOf(ws, us.length);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, us.length + (us.length >> 1));
+        us = Arrays.copyOf(us, capacity);
+        vs = Arrays.copyOf(vs, capacity);
+        ws = Arrays.copyOf(ws, capacity);
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        }
+    }
+}
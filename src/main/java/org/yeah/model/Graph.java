@@ -1,38 +1,106 @@
 package org.yeah.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class Graph {
     public int n;
-    public List<Edge> edges;
+    public EdgeList edges;
     public int source;
     public String weightModel;
+    // Duration of each node, used when weightModel is "node"; left out of the JSON when absent
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public int[] nodeWeights;
 
-    private List<List<Edge>> adjList;
+    // Adjacency comes from the CSR copy; there is no per-node list of Edge objects
+    private CSRGraph csr;
 
     public Graph() {
-        edges = new ArrayList<>();
+        edges = new EdgeList();
     }
 
+    // Call after changing edges so neighbors and toCSR() see them
     public void buildGraph() {
-        adjList = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            adjList.add(new ArrayList<>());
-        }
+        csr = null;
+    }
 
-        for (Edge edge : edges) {
-            adjList.get(edge.u).add(edge);
+    // Rebuilds the CSR now, and with withReverse its reverse index too: sequentially both come out of
+    // the same scans over the edges, in parallel each direction is built on its own thread
+    public void buildGraph(boolean withReverse, boolean parallel) {
+        if (!withReverse) {
+            csr = CSRGraph.fromGraph(this);
+        } else if (!parallel) {
+            csr = CSRGraph.fromGraphWithReverse(this);
+        } else {
+            ForkJoinTask<CSRGraph> reversed = ForkJoinPool.commonPool().submit(() -> CSRGraph.reverseFromGraph(this));
+            CSRGraph forward = CSRGraph.fromGraph(this);
+            forward.link(reversed.join());
+            csr = forward;
         }
     }
 
+    // Edges leaving node, materialized from the CSR arrays in insertion order
     public List<Edge> getNeighbors(int node) {
-        if (adjList == null) {
-            buildGraph();
+        return edgeView(toCSR(), node, false);
+    }
+
+    // Edges entering node, from the reverse index (built on first use)
+    public List<Edge> getPredecessors(int node) {
+        return edgeView(toReverseCSR(), node, true);
+    }
+
+    public CSRGraph toReverseCSR() {
+        return toCSR().reverse();
+    }
+
+    // Everything node transitively depends on, nearest first
+    public int[] ancestors(int node) {
+        return toCSR().ancestors(node);
+    }
+
+    public int[] descendants(int node) {
+        return toCSR().descendants(node);
+    }
+
+    private static List<Edge> edgeView(CSRGraph graph, int node, boolean reversed) {
+        int start = graph.start(node);
+        int degree = graph.end(node) - start;
+        return new AbstractList<Edge>() {
+            @Override
+            public Edge get(int i) {
+                if (i < 0 || i >= degree) {
+                    throw new IndexOutOfBoundsException("Index " + i + " out of bounds for degree " + degree);
+                }
+                int other = graph.target(start + i);
+                int w = graph.weight(start + i);
+                return reversed ? new Edge(other, node, w) : new Edge(node, other, w);
+            }
+
+            @Override
+            public int size() {
+                return degree;
+            }
+        };
+    }
+
+    // Compact primitive view of the same edges, built once and reused until buildGraph() is called again
+    public CSRGraph toCSR() {
+        if (csr == null) {
+            csr = CSRGraph.fromGraph(this);
         }
-        return adjList.get(node);
+        return csr;
     }
 
+    // Not part of the stored JSON; older files carry "adjList": null, which is ignored on read
+    @JsonIgnore
     public List<List<Edge>> getAdjList() {
+        List<List<Edge>> adjList = new ArrayList<>(n);
+        for (int node = 0; node < n; node++) {
+            adjList.add(getNeighbors(node));
+        }
         return adjList;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+package org.yeah.model;
+
+// Scalar fields of a stored graph, available without loading its edges, plus node weights when it has them
+public class GraphHeader {
+    public int n;
+    public int source;
+    public String weightModel;
+    public long edgeCount;
+    public int[] nodeWeights;
+}
@@ -0,0 +1,48 @@
+package org.yeah.model;
+
+import java.nio.IntBuffer;
+
+// CSR graph whose arrays live in memory-mapped file regions instead of the Java heap.
+// Edge arrays are split into chunks because a single mapping is limited to 2 GB
+public class MappedCSRGraph extends CSRGraph {
+    public static final int CHUNK_SHIFT = 28;
+    public static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private final IntBuffer offsets;
+    private final IntBuffer[] targetChunks;
+    private final IntBuffer[] weightChunks;
+    private final int edgeCount;
+
+    public MappedCSRGraph(int n, int edgeCount, IntBuffer offsets, IntBuffer[] targetChunks, IntBuffer[] weightChunks) {
+        super(n);
+        this.edgeCount = edgeCount;
+        this.offsets = offsets;
+        this.targetChunks = targetChunks;
+        this.weightChunks = weightChunks;
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int start(int u) {
+        return offsets.get(u);
+    }
+
+    @Override
+    public int end(int u) {
+        return offsets.get(u + 1);
+    }
+
+    @Override
+    public int target(int edge) {
+        return targetChunks[edge >>> CHUNK_SHIFT].get(edge & CHUNK_MASK);
+    }
+
+    @Override
+    public int weight(int edge) {
+        return weightChunks[edge >>> CHUNK_SHIFT].get(edge & CHUNK_MASK);
+    }
+}
@@ -0,0 +1,195 @@
+package org.yeah.utils;
+
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.model.GraphHeader;
+import org.yeah.model.MappedCSRGraph;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Versioned little-endian CSR file:
+//   header (64 bytes): magic, version, n, source, edge count (long), weight model length + bytes,
+//   node weight flag in the last 4 bytes (version 2 only; version 1 files have no node weights)
+//   offsets: n + 1 ints, targets: m ints, weights: m ints, then n node weights if flagged
+public class BinaryGraphIO {
+    public static final int MAGIC = 0x46524759; // "YGRF" in file byte order
+    // Written by write(); readers still accept version 1, from before node weights
+    public static final int VERSION = 2;
+    private static final int FIRST_VERSION = 1;
+    public static final int HEADER_BYTES = 64;
+    private static final int MAX_MODEL_BYTES = 32;
+    private static final int NODE_WEIGHTS_FLAG_OFFSET = 60;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    public static void write(Graph graph, String filePath) throws IOException {
+        write(graph.toCSR(), graph.source, graph.weightModel, filePath);
+    }
+
+    public static void write(CSRGraph graph, int source, String weightModel, String filePath) throws IOException {
+        byte[] model = (weightModel == null ? "edge" : weightModel).getBytes(StandardCharsets.US_ASCII);
+        if (model.length > MAX_MODEL_BYTES) {
+            throw new IOException("Weight model name too long: " + weightModel);
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            int n = graph.n;
+            int m = graph.edgeCount();
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(n);
+            buffer.putInt(source);
+            buffer.putLong(m);
+            buffer.putInt(model.length);
+            buffer.put(model);
+            buffer.putInt(NODE_WEIGHTS_FLAG_OFFSET, graph.hasNodeWeights() ? 1 : 0);
+            buffer.position(HEADER_BYTES);
+
+            for (int u = 0; u < n; u++) {
+                putInt(channel, buffer, graph.start(u));
+            }
+            putInt(channel, buffer, m);
+            for (int e = 0; e < m; e++) {
+                putInt(channel, buffer, graph.target(e));
+            }
+            for (int e = 0; e < m; e++) {
+                putInt(channel, buffer, graph.weight(e));
+            }
+            if (graph.hasNodeWeights()) {
+                for (int u = 0; u < n; u++) {
+                    putInt(channel, buffer, graph.nodeWeight(u));
+                }
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public static void convert(String jsonPath, String binaryPath) throws IOException {
+        CSRGraph graph = JSONReader.readCSR(jsonPath);
+        write(graph, graph.getSource(), graph.getWeightModel(), binaryPath);
+    }
+
+    public static GraphHeader readHeader(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            return readHeader(channel, filePath);
+        }
+    }
+
+    // Maps the file read-only; nothing is copied onto the heap, pages are loaded lazily by the OS
+    public static MappedCSRGraph map(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            GraphHeader header = readHeader(channel, filePath);
+            int n = header.n;
+            int m = (int) header.edgeCount;
+
+            long offsetsStart = HEADER_BYTES;
+            long targetsStart = offsetsStart + 4L * (n + 1);
+            long weightsStart = targetsStart + 4L * m;
+            long expectedSize = weightsStart + 4L * m + (header.nodeWeights != null ? 4L * n : 0);
+            if (channel.size() < expectedSize) {
+                throw new IOException("Truncated graph file " + filePath + ": expected " + expectedSize
+                        + " bytes, found " + channel.size());
+            }
+            if (4L * (n + 1) > Integer.MAX_VALUE) {
+                throw new IOException("Too many nodes to map offsets in one region: " + n);
+            }
+
+            IntBuffer offsets = mapInts(channel, offsetsStart, n + 1);
+            IntBuffer[] targets = mapChunks(channel, targetsStart, m);
+            IntBuffer[] weights = mapChunks(channel, weightsStart, m);
+            MappedCSRGraph graph = new MappedCSRGraph(n, m, offsets, targets, weights);
+            graph.setNodeWeights(header.nodeWeights);
+            graph.setWeightModel(header.weightModel);
+            graph.setSource(header.source);
+            return graph;
+        }
+    }
+
+    private static GraphHeader readHeader(FileChannel channel, String filePath) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                throw new IOException("Truncated header in " + filePath);
+            }
+        }
+        buffer.flip();
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary graph file: " + filePath);
+        }
+        int version = buffer.getInt();
+        if (version < FIRST_VERSION || version > VERSION) {
+            throw new IOException("Unsupported binary graph version " + version + " in " + filePath);
+        }
+
+        GraphHeader header = new GraphHeader();
+        header.n = buffer.getInt();
+        header.source = buffer.getInt();
+        header.edgeCount = buffer.getLong();
+        int modelLength = buffer.getInt();
+        if (header.n < 0 || header.edgeCount < 0 || header.edgeCount > Integer.MAX_VALUE
+                || modelLength < 0 || modelLength > MAX_MODEL_BYTES) {
+            throw new IOException("Corrupt header in " + filePath);
+        }
+        byte[] model = new byte[modelLength];
+        buffer.get(model);
+        header.weightModel = new String(model, StandardCharsets.US_ASCII);
+
+        // Node weights are only n ints, so they are read onto the heap rather than mapped
+        if (version >= 2 && buffer.getInt(NODE_WEIGHTS_FLAG_OFFSET) != 0) {
+            long position = HEADER_BYTES + 4L * (header.n + 1) + 8L * header.edgeCount;
+            ByteBuffer weights = ByteBuffer.allocate(4 * header.n).order(ByteOrder.LITTLE_ENDIAN);
+            while (weights.hasRemaining()) {
+                if (channel.read(weights, position + weights.position()) < 0) {
+                    throw new IOException("Truncated node weights in " + filePath);
+                }
+            }
+            weights.flip();
+            header.nodeWeights = new int[header.n];
+            weights.asIntBuffer().get(header.nodeWeights);
+        }
+        return header;
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count);
+        return region.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    private static IntBuffer[] mapChunks(FileChannel channel, long position, int count) throws IOException {
+        int chunkSize = 1 << MappedCSRGraph.CHUNK_SHIFT;
+        int chunks = Math.max(1, (int) ((count + (long) chunkSize - 1) / chunkSize));
+        IntBuffer[] result = new IntBuffer[chunks];
+        for (int c = 0; c < chunks; c++) {
+            int length = (int) Math.min(chunkSize, count - (long) c * chunkSize);
+            result[c] = mapInts(channel, position + 4L * c * chunkSize, length);
+        }
+        return result;
+    }
+
+    private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        buffer.putInt(value);
+    }
+}
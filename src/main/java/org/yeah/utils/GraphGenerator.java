@@ -1,7 +1,7 @@
 package org.yeah.utils;
 
 import org.yeah.model.Graph;
-import org.yeah.model.Edge;
+import org.yeah.model.EdgeList;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.File;
 import java.io.IOException;
@@ -35,7 +35,7 @@ public class GraphGenerator {
 
     public static void generateDataset(String name, int nodes, int targetEdges, boolean includeCycles) {
         Graph graph = createBaseGraph(nodes);
-        Set<String> existingEdges = new HashSet<>();
+        LongIntHashMap existingEdges = new LongIntHashMap(16);
 
         System.out.println("Generating " + name + ": " + nodes + " nodes, target: " + targetEdges + " edges");
 
@@ -106,7 +106,7 @@ public class GraphGenerator {
         // directed field removed - it's always true for our case
         graph.weightModel = "edge";
         graph.source = 0;
-        graph.edges = new ArrayList<>();
+        graph.edges = new EdgeList();
         return graph;
     }
 
@@ -114,21 +114,22 @@ public class GraphGenerator {
         try {
             String filePath = "data/" + name + ".json";
             mapper.writerWithDefaultPrettyPrinter().writeValue(new File(filePath), graph);
+            BinaryGraphIO.write(graph, "data/" + name + ".bin");
             System.out.println("Generated: " + filePath + " (nodes: " + nodes + ", edges: " + graph.edges.size() + ")");
         } catch (IOException e) {
             System.err.println("Error saving " + name + ": " + e.getMessage());
         }
     }
 
-    private static void addEdge(Graph graph, Set<String> existingEdges, int u, int v, int weight) {
-        String edgeKey = u + "->" + v;
-        if (!existingEdges.contains(edgeKey)) {
-            graph.edges.add(new Edge(u, v, weight));
-            existingEdges.add(edgeKey);
+    private static void addEdge(Graph graph, LongIntHashMap existingEdges, int u, int v, int weight) {
+        // Packed (u, v) key, so duplicate checks do not build strings
+        long edgeKey = ((long) u << 32) | v;
+        if (existingEdges.putIfAbsent(edgeKey, 1, 0) == 0) {
+            graph.edges.add(u, v, weight);
         }
     }
 
-    private static void createCycle(Graph graph, Set<String> existingEdges, int nodes) {
+    private static void createCycle(Graph graph, LongIntHashMap existingEdges, int nodes) {
         if (nodes < 3) return;
 
         // Create a cycle of 3-4 nodes
@@ -153,7 +154,7 @@ public class GraphGenerator {
     // Method to generate specific types of graphs for testing
     public static Graph generatePureDAG(int nodes, int edges) {
         Graph graph = createBaseGraph(nodes);
-        Set<String> existingEdges = new HashSet<>();
+        LongIntHashMap existingEdges = new LongIntHashMap(16);
 
         // Create a topological order
         List<Integer> order = new ArrayList<>();
@@ -177,7 +178,7 @@ public class GraphGenerator {
 
     public static Graph generateCyclicGraph(int nodes, int edges, int cycles) {
         Graph graph = createBaseGraph(nodes);
-        Set<String> existingEdges = new HashSet<>();
+        LongIntHashMap existingEdges = new LongIntHashMap(16);
 
         // Create specified number of cycles
         for (int c = 0; c < cycles; c++) {
@@ -198,7 +199,7 @@ public class GraphGenerator {
 
     public static void generateDenseDataset(String name, int nodes, int targetEdges, boolean includeCycles) {
         Graph graph = createBaseGraph(nodes);
-        Set<String> existingEdges = new HashSet<>();
+        LongIntHashMap existingEdges = new LongIntHashMap(16);
 
         System.out.println("Generating DENSE " + name + ": " + nodes + " nodes, target: " + targetEdges + " edges");
 
@@ -0,0 +1,57 @@
+package org.yeah.utils;
+
+import java.util.Arrays;
+
+// Growable list of primitive ints
+public class IntList {
+    private int[] data;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int capacity) {
+        data = new int[Math.max(1, capacity)];
+    }
+
+    public void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length + (data.length >> 1) + 1);
+        }
+        data[size++] = value;
+    }
+
+    public int get(int index) {
+        return data[index];
+    }
+
+    public void set(int index, int value) {
+        data[index] = value;
+    }
+
+    public int removeLast() {
+        return data[--size];
+    }
+
+    // Removes the value at index by moving the last value into its place, so order is not kept
+    public void swapRemove(int index) {
+        data[index] = data[--size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
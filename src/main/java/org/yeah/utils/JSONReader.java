@@ -1,14 +1,213 @@
 package org.yeah.utils;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.yeah.model.CSRGraph;
 import org.yeah.model.Graph;
+import org.yeah.model.GraphHeader;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
+// Token-by-token graph loader: edges go straight from the parser into their destination
+// without building a JSON tree or binding Edge POJOs through the databind layer
 public class JSONReader {
-    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final JsonFactory factory = new JsonFactory();
+
+    public interface EdgeVisitor {
+        void edge(int u, int v, int w);
+    }
 
     public static Graph readGraph(String filePath) throws IOException {
-        return mapper.readValue(new File(filePath), Graph.class);
+        Graph graph = new Graph();
+        GraphHeader header = streamEdges(filePath, graph.edges::add);
+        graph.edges.trimToSize();
+        graph.n = header.n;
+        graph.source = header.source;
+        graph.weightModel = header.weightModel;
+        graph.nodeWeights = header.nodeWeights;
+        return graph;
+    }
+
+    // Single pass into growable int arrays, then one counting sort into CSR
+    public static CSRGraph readCSR(String filePath) throws IOException {
+        IntList us = new IntList(1024);
+        IntList vs = new IntList(1024);
+        IntList ws = new IntList(1024);
+        GraphHeader header = streamEdges(filePath, (u, v, w) -> {
+            us.add(u);
+            vs.add(v);
+            ws.add(w);
+        });
+
+        int n = header.n;
+        int m = us.size();
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            offsets[us.get(i) + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] cursor = Arrays.copyOf(offsets, n);
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        for (int i = 0; i < m; i++) {
+            int pos = cursor[us.get(i)]++;
+            targets[pos] = vs.get(i);
+            weights[pos] = ws.get(i);
+        }
+        return withHeader(new CSRGraph(n, offsets, targets, weights), header);
+    }
+
+    // Bounded-memory mode for very large files: the first pass only counts out-degrees and the
+    // second fills exactly-sized CSR arrays, so no per-edge buffer is ever held besides the result
+    public static CSRGraph readCSRBounded(String filePath) throws IOException {
+        int[][] degree = {new int[1024]};
+        GraphHeader header = streamEdges(filePath, (u, v, w) -> {
+            if (u + 1 >= degree[0].length) {
+                degree[0] = Arrays.copyOf(degree[0], Math.max(u + 2, degree[0].length * 2));
+            }
+            degree[0][u + 1]++;
+        });
+
+        int n = header.n;
+        if (header.edgeCount > Integer.MAX_VALUE) {
+            throw new IOException("Too many edges for CSR arrays: " + header.edgeCount);
+        }
+        int[] offsets = Arrays.copyOf(degree[0], n + 1);
+        degree[0] = null;
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int m = (int) header.edgeCount;
+        int[] cursor = Arrays.copyOf(offsets, n);
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        streamEdges(filePath, (u, v, w) -> {
+            int pos = cursor[u]++;
+            targets[pos] = v;
+            weights[pos] = w;
+        });
+        return withHeader(new CSRGraph(n, offsets, targets, weights), header);
+    }
+
+    public static GraphHeader readHeader(String filePath) throws IOException {
+        return streamEdges(filePath, null);
+    }
+
+    // Reads the top-level fields and reports every edge to the visitor; a null visitor skips the edges
+    public static GraphHeader streamEdges(String filePath, EdgeVisitor visitor) throws IOException {
+        GraphHeader header = new GraphHeader();
+        header.weightModel = "edge";
+
+        try (JsonParser parser = factory.createParser(new File(filePath))) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "n":
+                        header.n = parser.getIntValue();
+                        break;
+                    case "source":
+                        header.source = parser.getIntValue();
+                        break;
+                    case "weightModel":
+                        header.weightModel = value == JsonToken.VALUE_NULL ? "edge" : parser.getText();
+                        break;
+                    case "nodeWeights":
+                        header.nodeWeights = value == JsonToken.VALUE_NULL ? null : readInts(parser);
+                        break;
+                    case "edges":
+                        if (visitor == null || value == JsonToken.VALUE_NULL) {
+                            header.edgeCount = value == JsonToken.VALUE_NULL ? 0 : countSkipped(parser);
+                        } else {
+                            header.edgeCount = readEdges(parser, visitor);
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+
+        if (header.nodeWeights != null && header.nodeWeights.length != header.n) {
+            throw new IOException("Expected " + header.n + " node weights in " + filePath
+                    + ", found " + header.nodeWeights.length);
+        }
+        return header;
+    }
+
+    // CSR copy of the edges plus the node weights and weight model from the header
+    private static CSRGraph withHeader(CSRGraph graph, GraphHeader header) {
+        graph.setNodeWeights(header.nodeWeights);
+        graph.setWeightModel(header.weightModel);
+        graph.setSource(header.source);
+        return graph;
+    }
+
+    private static int[] readInts(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        IntList values = new IntList(64);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(parser.getIntValue());
+        }
+        return values.toArray();
+    }
+
+    private static long readEdges(JsonParser parser, EdgeVisitor visitor) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        long count = 0;
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int u = 0;
+            int v = 0;
+            int w = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "u":
+                        u = parser.getIntValue();
+                        break;
+                    case "v":
+                        v = parser.getIntValue();
+                        break;
+                    case "w":
+                        w = parser.getIntValue();
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            visitor.edge(u, v, w);
+            count++;
+        }
+
+        expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+        return count;
+    }
+
+    private static long countSkipped(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        long count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            count++;
+        }
+        return count;
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
     }
-}
\ No newline at end of file
+}
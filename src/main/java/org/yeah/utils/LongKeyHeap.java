@@ -0,0 +1,86 @@
+package org.yeah.utils;
+
+import java.util.Arrays;
+
+// Binary min-heap of int items with long keys; equal keys come out smallest item first.
+// Keys and items sit side by side in parallel arrays, so nothing is boxed
+public class LongKeyHeap {
+    private int[] items;
+    private long[] keys;
+    private int size;
+
+    public LongKeyHeap(int capacity) {
+        capacity = Math.max(1, capacity);
+        items = new int[capacity];
+        keys = new long[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void push(int item, long key) {
+        if (size == items.length) {
+            int capacity = size + (size >> 1) + 1;
+            items = Arrays.copyOf(items, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (!less(item, key, items[parent], keys[parent])) {
+                break;
+            }
+            items[i] = items[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        items[i] = item;
+        keys[i] = key;
+    }
+
+    public int peek() {
+        return items[0];
+    }
+
+    public long peekKey() {
+        return keys[0];
+    }
+
+    public int pop() {
+        int top = items[0];
+        int lastItem = items[--size];
+        long lastKey = keys[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(items[child + 1], keys[child + 1], items[child], keys[child])) {
+                child++;
+            }
+            if (!less(items[child], keys[child], lastItem, lastKey)) {
+                break;
+            }
+            items[i] = items[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        items[i] = lastItem;
+        keys[i] = lastKey;
+        return top;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private static boolean less(int item, long key, int otherItem, long otherKey) {
+        return key < otherKey || (key == otherKey && item < otherItem);
+    }
+}
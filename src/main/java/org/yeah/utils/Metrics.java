@@ -1,15 +1,120 @@
 package org.yeah.utils;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
 public class Metrics {
+    // Names of the counters in the order counterValues() returns them
+    public static final List<String> COUNTER_NAMES = Collections.unmodifiableList(Arrays.asList(
+            "dfs_visits", "dfs_edges", "kahn_pushes", "kahn_pops", "relaxations"));
+
     private long startTime;
     private long endTime;
 
-    // Counters for different algorithms
-    public int dfsVisits;
-    public int dfsEdges;
-    public int kahnPops;
-    public int kahnPushes;
-    public int relaxations;
+    // Counters for different algorithms. Striped, so parallel code can add to them from any thread;
+    // algorithms count in locals and add once per run rather than once per edge
+    private final LongAdder dfsVisits = new LongAdder();
+    private final LongAdder dfsEdges = new LongAdder();
+    private final LongAdder kahnPops = new LongAdder();
+    private final LongAdder kahnPushes = new LongAdder();
+    private final LongAdder relaxations = new LongAdder();
+
+    // Durations per named stage, kept across reset() so percentiles cover every run
+    private final Map<String, LatencyHistogram> stages = new LinkedHashMap<>();
+
+    // Metrics that record nothing, for runs where the counters are not wanted
+    public static Metrics disabled() {
+        return NoOpMetrics.INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return true;
+    }
+
+    public void addDfsVisits(long count) {
+        dfsVisits.add(count);
+    }
+
+    public void addDfsEdges(long count) {
+        dfsEdges.add(count);
+    }
+
+    public void addKahnPops(long count) {
+        kahnPops.add(count);
+    }
+
+    public void addKahnPushes(long count) {
+        kahnPushes.add(count);
+    }
+
+    public void addRelaxations(long count) {
+        relaxations.add(count);
+    }
+
+    public long getDfsVisits() {
+        return dfsVisits.sum();
+    }
+
+    public long getDfsEdges() {
+        return dfsEdges.sum();
+    }
+
+    public long getKahnPops() {
+        return kahnPops.sum();
+    }
+
+    public long getKahnPushes() {
+        return kahnPushes.sum();
+    }
+
+    public long getRelaxations() {
+        return relaxations.sum();
+    }
+
+    public long[] counterValues() {
+        return new long[]{getDfsVisits(), getDfsEdges(), getKahnPushes(), getKahnPops(), getRelaxations()};
+    }
+
+    // Bytes allocated so far by the calling thread, or -1 if the JVM does not track it
+    public static long threadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    // Times one execution of a stage: stop() (or close()) records the duration under the stage name
+    public Stage stage(String name) {
+        return new Stage(this, name);
+    }
+
+    public void recordStage(String name, long nanos) {
+        LatencyHistogram histogram;
+        synchronized (stages) {
+            histogram = stages.computeIfAbsent(name, key -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    // Null if the stage never ran
+    public LatencyHistogram getStage(String name) {
+        synchronized (stages) {
+            return stages.get(name);
+        }
+    }
+
+    // Stage names in the order they first ran
+    public List<String> getStageNames() {
+        synchronized (stages) {
+            return new ArrayList<>(stages.keySet());
+        }
+    }
 
     public void startTimer() {
         startTime = System.nanoTime();
@@ -23,11 +128,87 @@ public class Metrics {
         return endTime - startTime;
     }
 
+    // Clears the counters; stage histograms are kept
     public void reset() {
-        dfsVisits = 0;
-        dfsEdges = 0;
-        kahnPops = 0;
-        kahnPushes = 0;
-        relaxations = 0;
+        dfsVisits.reset();
+        dfsEdges.reset();
+        kahnPops.reset();
+        kahnPushes.reset();
+        relaxations.reset();
+    }
+
+    // Besides the duration, a stage keeps how much each counter grew while it ran and how many bytes
+    // the thread that started it allocated (work done by pool threads is not included). On disabled
+    // metrics it only takes the duration: no counter snapshots, allocation reads or recordStage call
+    public static class Stage implements AutoCloseable {
+        private final Metrics metrics;
+        private final String name;
+        private final long[] countersAtStart;
+        private final long allocatedAtStart;
+        private final long start;
+        private long elapsed = -1;
+        private long[] counters;
+        private long allocatedBytes = -1;
+
+        private Stage(Metrics metrics, String name) {
+            this.metrics = metrics;
+            this.name = name;
+            boolean enabled = metrics.isEnabled();
+            this.countersAtStart = enabled ? metrics.counterValues() : null;
+            this.allocatedAtStart = enabled ? threadAllocatedBytes() : -1;
+            this.start = System.nanoTime();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // Records the duration the first time and returns it on every call
+        public long stop() {
+            if (elapsed < 0) {
+                elapsed = System.nanoTime() - start;
+                if (countersAtStart == null) {
+                    return elapsed;
+                }
+                long allocatedNow = threadAllocatedBytes();
+                if (allocatedAtStart >= 0 && allocatedNow >= 0) {
+                    allocatedBytes = allocatedNow - allocatedAtStart;
+                }
+                counters = metrics.counterValues();
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] -= countersAtStart[i];
+                }
+                metrics.recordStage(name, elapsed);
+            }
+            return elapsed;
+        }
+
+        public long getElapsedNanos() {
+            return elapsed;
+        }
+
+        // Counter growth during the stage, in COUNTER_NAMES order; null until stopped or when disabled
+        public long[] getCounters() {
+            return counters;
+        }
+
+        // Growth of one counter from COUNTER_NAMES during the stage
+        public long getCounter(String counterName) {
+            int index = COUNTER_NAMES.indexOf(counterName);
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown counter: " + counterName);
+            }
+            return counters == null ? 0 : counters[index];
+        }
+
+        // -1 if unknown
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
     }
-}
\ No newline at end of file
+}
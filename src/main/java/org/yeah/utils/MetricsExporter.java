@@ -0,0 +1,183 @@
+package org.yeah.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Collects one record per dataset and stage and writes them as JSON lines, CSV and a Prometheus text
+// file. JSON lines and CSV are appended so successive runs can be compared; the Prometheus file always
+// holds the latest run, as a textfile collector expects
+public class MetricsExporter {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final long runTimestamp;
+    private final List<StageRecord> records = new ArrayList<>();
+
+    public MetricsExporter() {
+        this(System.currentTimeMillis());
+    }
+
+    public MetricsExporter(long runTimestamp) {
+        this.runTimestamp = runTimestamp;
+    }
+
+    public static class StageRecord {
+        public final String dataset;
+        public final String stage;
+        public final long nodes;
+        public final long edges;
+        public final long elapsedNanos;
+        public final long allocatedBytes;
+        public final long[] counters;
+
+        public StageRecord(String dataset, String stage, long nodes, long edges,
+                           long elapsedNanos, long allocatedBytes, long[] counters) {
+            this.dataset = dataset;
+            this.stage = stage;
+            this.nodes = nodes;
+            this.edges = edges;
+            this.elapsedNanos = elapsedNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.counters = counters;
+        }
+    }
+
+    // Nodes and edges are those of the stage's input, e.g. the condensation graph for topo and paths
+    public synchronized void record(String dataset, long nodes, long edges, Metrics.Stage stage) {
+        stage.stop();
+        // A stage of disabled metrics has no counters; it exports zeros
+        long[] counters = stage.getCounters() == null ? new long[Metrics.COUNTER_NAMES.size()] : stage.getCounters().clone();
+        records.add(new StageRecord(dataset, stage.getName(), nodes, edges,
+                stage.getElapsedNanos(), stage.getAllocatedBytes(), counters));
+    }
+
+    public synchronized List<StageRecord> getRecords() {
+        return new ArrayList<>(records);
+    }
+
+    public synchronized void writeJsonLines(String path) throws IOException {
+        try (Writer out = openAppend(path)) {
+            for (StageRecord record : records) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("timestamp", runTimestamp);
+                line.put("dataset", record.dataset);
+                line.put("stage", record.stage);
+                line.put("nodes", record.nodes);
+                line.put("edges", record.edges);
+                line.put("elapsed_nanos", record.elapsedNanos);
+                line.put("allocated_bytes", record.allocatedBytes);
+                for (int i = 0; i < Metrics.COUNTER_NAMES.size(); i++) {
+                    line.put(Metrics.COUNTER_NAMES.get(i), record.counters[i]);
+                }
+                out.write(mapper.writeValueAsString(line));
+                out.write('\n');
+            }
+        }
+    }
+
+    // The header is only written when the file is new
+    public synchronized void writeCsv(String path) throws IOException {
+        boolean fresh = !new File(path).exists() || new File(path).length() == 0;
+        try (Writer out = openAppend(path)) {
+            if (fresh) {
+                out.write("timestamp,dataset,stage,nodes,edges,elapsed_nanos,allocated_bytes");
+                for (String counter : Metrics.COUNTER_NAMES) {
+                    out.write(',');
+                    out.write(counter);
+                }
+                out.write('\n');
+            }
+            for (StageRecord record : records) {
+                StringBuilder row = new StringBuilder();
+                row.append(runTimestamp).append(',').append(csvField(record.dataset)).append(',')
+                        .append(csvField(record.stage)).append(',').append(record.nodes).append(',')
+                        .append(record.edges).append(',').append(record.elapsedNanos).append(',')
+                        .append(record.allocatedBytes);
+                for (long counter : record.counters) {
+                    row.append(',').append(counter);
+                }
+                out.write(row.append('\n').toString());
+            }
+        }
+    }
+
+    public synchronized void writePrometheus(String path) throws IOException {
+        StringBuilder text = new StringBuilder();
+        gauge(text, "graph_stage_elapsed_nanoseconds", "Wall time of the stage in the latest run");
+        for (StageRecord record : records) {
+            sample(text, "graph_stage_elapsed_nanoseconds", record, null, record.elapsedNanos);
+        }
+        gauge(text, "graph_stage_allocated_bytes", "Bytes allocated by the thread running the stage, -1 if unknown");
+        for (StageRecord record : records) {
+            sample(text, "graph_stage_allocated_bytes", record, null, record.allocatedBytes);
+        }
+        gauge(text, "graph_stage_operations", "Algorithm counters accumulated during the stage");
+        for (StageRecord record : records) {
+            for (int i = 0; i < Metrics.COUNTER_NAMES.size(); i++) {
+                sample(text, "graph_stage_operations", record, Metrics.COUNTER_NAMES.get(i), record.counters[i]);
+            }
+        }
+        gauge(text, "graph_stage_input_nodes", "Nodes in the graph the stage worked on");
+        for (StageRecord record : records) {
+            sample(text, "graph_stage_input_nodes", record, null, record.nodes);
+        }
+        gauge(text, "graph_stage_input_edges", "Edges in the graph the stage worked on");
+        for (StageRecord record : records) {
+            sample(text, "graph_stage_input_edges", record, null, record.edges);
+        }
+
+        // Written next to the target and renamed, so a scraper never sees half a file
+        File target = new File(path);
+        File temp = new File(target.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            out.write(text.toString());
+        }
+        if (!temp.renameTo(target)) {
+            target.delete();
+            if (!temp.renameTo(target)) {
+                throw new IOException("Could not move " + temp + " to " + target);
+            }
+        }
+    }
+
+    // Writes metrics.jsonl, metrics.csv and metrics.prom into the directory
+    public void writeAll(String directory) throws IOException {
+        File dir = new File(directory);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        writeJsonLines(new File(dir, "metrics.jsonl").getPath());
+        writeCsv(new File(dir, "metrics.csv").getPath());
+        writePrometheus(new File(dir, "metrics.prom").getPath());
+    }
+
+    private static Writer openAppend(String path) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path, true), StandardCharsets.UTF_8));
+    }
+
+    private static String csvField(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static void gauge(StringBuilder text, String name, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(" gauge\n");
+    }
+
+    private static void sample(StringBuilder text, String name, StageRecord record, String counter, long value) {
+        text.append(name).append("{dataset=\"").append(label(record.dataset))
+                .append("\",stage=\"").append(label(record.stage)).append('"');
+        if (counter != null) {
+            text.append(",counter=\"").append(counter).append('"');
+        }
+        text.append("} ").append(value).append('\n');
+    }
+
+    private static String label(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
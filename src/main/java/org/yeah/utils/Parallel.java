@@ -0,0 +1,54 @@
+package org.yeah.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+public class Parallel {
+    public static final int DEFAULT_GRAIN = 4096;
+
+    private Parallel() {}
+
+    // Runs body(i) for every i in [from, to), split into chunks of at least grain indices
+    public static void forRange(ForkJoinPool pool, int from, int to, int grain, IntConsumer body) {
+        if (to - from <= grain) {
+            for (int i = from; i < to; i++) {
+                body.accept(i);
+            }
+            return;
+        }
+        pool.invoke(new RangeAction(from, to, Math.max(1, grain), body));
+    }
+
+    public static void forRange(ForkJoinPool pool, int from, int to, IntConsumer body) {
+        forRange(pool, from, to, DEFAULT_GRAIN, body);
+    }
+
+    private static class RangeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IntConsumer body;
+
+        RangeAction(int from, int to, int grain, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    body.accept(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeAction(from, mid, grain, body), new RangeAction(mid, to, grain, body));
+        }
+    }
+}
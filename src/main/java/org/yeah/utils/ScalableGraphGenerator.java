@@ -0,0 +1,417 @@
+package org.yeah.utils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.yeah.model.CSRGraph;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+// Generator for large task graphs. Nodes are grouped into planned SCCs (each closed by a cycle),
+// the SCCs are laid out in DAG layers, and extra edges either stay inside an SCC or point to a
+// later layer, so the generated graph has exactly the planned components and depth.
+// Node ranges are split into fixed-size partitions that are generated independently with their
+// own seeded random stream, so the output depends only on the config, not on the thread count.
+public class ScalableGraphGenerator {
+
+    public static class Config {
+        public int nodes = 1000;
+        public int edges = 4000;
+        public long seed = 42;
+
+        // SCC sizes follow a power law between minSccSize and maxSccSize; exponent <= 1 means uniform
+        public int minSccSize = 1;
+        public int maxSccSize = 8;
+        public double sccSizeExponent = 2.5;
+
+        // Number of DAG layers the components are spread over (width = components / depth)
+        public int depth = 16;
+        // Share of the extra edges that stay inside an SCC
+        public double intraFraction = 0.2;
+        // Probability that an inter-component edge targets the very next layer
+        public double nextLayerBias = 0.7;
+
+        public int maxWeight = 5;
+        public int partitionSize = 1 << 16;
+    }
+
+    private static final int TOP_UP_ROUNDS = 8;
+
+    private final Config config;
+    private final ForkJoinPool pool;
+    private final int n;
+    private final int componentCount;
+    private final int layers;
+    private final int[] componentStart;
+    private final int[] componentOf;
+    private final int[] layerStart;
+    private final int partitions;
+    private final long[] budgets;
+
+    public ScalableGraphGenerator(Config config) {
+        this(config, ForkJoinPool.commonPool());
+    }
+
+    public ScalableGraphGenerator(Config config, ForkJoinPool pool) {
+        if (config.nodes < 1 || config.edges < 0 || config.minSccSize < 1 || config.maxSccSize < config.minSccSize
+                || config.depth < 1 || config.maxWeight < 1 || config.partitionSize < 1) {
+            throw new IllegalArgumentException("Invalid generator config");
+        }
+        this.config = config;
+        this.pool = pool;
+        this.n = config.nodes;
+
+        // Plan component sizes sequentially from the base seed
+        SplittableRandom random = new SplittableRandom(config.seed);
+        IntList starts = new IntList();
+        int filled = 0;
+        while (filled < n) {
+            starts.add(filled);
+            filled += Math.min(n - filled, drawSccSize(random));
+        }
+        starts.add(n);
+        componentStart = starts.toArray();
+        componentCount = componentStart.length - 1;
+
+        componentOf = new int[n];
+        int mandatory = 0;
+        for (int c = 0; c < componentCount; c++) {
+            int size = componentStart[c + 1] - componentStart[c];
+            Arrays.fill(componentOf, componentStart[c], componentStart[c + 1], c);
+            if (size > 1) {
+                mandatory += size;
+            }
+        }
+
+        // Layer k holds components [k * C / depth, (k + 1) * C / depth), stored as node ranges
+        layers = Math.min(config.depth, componentCount);
+        layerStart = new int[layers + 1];
+        for (int k = 0; k <= layers; k++) {
+            layerStart[k] = componentStart[(int) ((long) k * componentCount / layers)];
+        }
+
+        partitions = (n + config.partitionSize - 1) / config.partitionSize;
+        budgets = planBudgets(Math.max(0, config.edges - mandatory));
+    }
+
+    // Extra edges per partition, in proportion to node count. Partitions with no later layer to
+    // point to only keep what their SCCs can absorb, and the rest moves to the other partitions
+    private long[] planBudgets(long extraEdges) {
+        long[] budget = new long[partitions];
+        long[] forwardNodes = new long[partitions];
+        long totalForward = 0;
+        long excess = 0;
+
+        for (int p = 0; p < partitions; p++) {
+            int lo = p * config.partitionSize;
+            int hi = (int) Math.min(n, (long) lo + config.partitionSize);
+            long share = extraEdges * hi / n - extraEdges * lo / n;
+            forwardNodes[p] = Math.max(0, Math.min(hi, forwardLimit()) - lo);
+            totalForward += forwardNodes[p];
+
+            if (forwardNodes[p] > 0) {
+                budget[p] = share;
+            } else {
+                // Random sampling only fills about half of the free pairs inside SCCs in reasonable time
+                long capacity = 0;
+                for (int u = lo; u < hi; u++) {
+                    int c = componentOf[u];
+                    capacity += Math.max(0, componentStart[c + 1] - componentStart[c] - 2);
+                }
+                budget[p] = Math.min(share, capacity / 2);
+                excess += share - budget[p];
+            }
+        }
+
+        if (excess > 0 && totalForward > 0) {
+            long seen = 0;
+            for (int p = 0; p < partitions; p++) {
+                long before = excess * seen / totalForward;
+                seen += forwardNodes[p];
+                budget[p] += excess * seen / totalForward - before;
+            }
+        }
+        return budget;
+    }
+
+    // Nodes below this id have a later layer to point to
+    private int forwardLimit() {
+        return layers < 2 ? 0 : layerStart[layers - 1];
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+
+    public int layerCount() {
+        return layers;
+    }
+
+    // Generates all partitions in parallel; edges come out already grouped by source, so they form the CSR
+    public CSRGraph generate() {
+        Partition[] parts = new Partition[partitions];
+        Parallel.forRange(pool, 0, partitions, 1, p -> parts[p] = generatePartition(p));
+
+        long total = 0;
+        for (Partition part : parts) {
+            total += part.keys.length;
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many edges for CSR arrays: " + total);
+        }
+
+        int m = (int) total;
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        int pos = 0;
+        for (int p = 0; p < partitions; p++) {
+            Partition part = parts[p];
+            parts[p] = null;
+            for (int i = 0; i < part.keys.length; i++) {
+                offsets[(int) (part.keys[i] >>> 32) + 1]++;
+                targets[pos] = (int) part.keys[i];
+                weights[pos] = part.weights[i];
+                pos++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        return new CSRGraph(n, offsets, targets, weights);
+    }
+
+    public void writeBinary(String filePath) throws IOException {
+        BinaryGraphIO.write(generate(), 0, "edge", filePath);
+    }
+
+    // Streams the JSON one batch of partitions at a time, so only a batch is ever held in memory
+    public void writeJson(String filePath) throws IOException {
+        int batch = Math.max(1, pool.getParallelism());
+        try (JsonGenerator json = new JsonFactory().createGenerator(new File(filePath), JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeNumberField("n", n);
+            json.writeArrayFieldStart("edges");
+
+            Partition[] parts = new Partition[batch];
+            for (int first = 0; first < partitions; first += batch) {
+                int from = first;
+                int count = Math.min(batch, partitions - first);
+                Parallel.forRange(pool, 0, count, 1, i -> parts[i] = generatePartition(from + i));
+
+                for (int i = 0; i < count; i++) {
+                    Partition part = parts[i];
+                    for (int e = 0; e < part.keys.length; e++) {
+                        json.writeStartObject();
+                        json.writeNumberField("u", (int) (part.keys[e] >>> 32));
+                        json.writeNumberField("v", (int) part.keys[e]);
+                        json.writeNumberField("w", part.weights[e]);
+                        json.writeEndObject();
+                    }
+                    parts[i] = null;
+                }
+            }
+
+            json.writeEndArray();
+            json.writeNumberField("source", 0);
+            json.writeStringField("weightModel", "edge");
+            json.writeEndObject();
+        }
+    }
+
+    private static class Partition {
+        final long[] keys;
+        final int[] weights;
+
+        Partition(long[] keys, int[] weights) {
+            this.keys = keys;
+            this.weights = weights;
+        }
+    }
+
+    private Partition generatePartition(int p) {
+        int lo = p * config.partitionSize;
+        int hi = (int) Math.min(n, (long) lo + config.partitionSize);
+        SplittableRandom random = new SplittableRandom(config.seed ^ (0x9E3779B97F4A7C15L * (p + 1)));
+
+        long budget = budgets[p];
+        boolean canPointForward = lo < forwardLimit();
+        int intraTarget = canPointForward ? (int) Math.round(budget * config.intraFraction) : (int) budget;
+        int interTarget = (int) budget - intraTarget;
+
+        LongList keys = new LongList((int) Math.min(Integer.MAX_VALUE - 8, hi - lo + budget + budget / 8));
+
+        // Cycle through every planned SCC so it is strongly connected
+        for (int u = lo; u < hi; u++) {
+            int c = componentOf[u];
+            int start = componentStart[c];
+            int end = componentStart[c + 1];
+            if (end - start > 1) {
+                keys.add(pack(u, u + 1 < end ? u + 1 : start));
+            }
+        }
+        int required = keys.size() + (int) budget;
+
+        // Draw extra edges, dedup by sorting packed keys, and top up until the budget is met
+        for (int round = 0; round < TOP_UP_ROUNDS && keys.size() < required; round++) {
+            int deficit = required - keys.size();
+            // Duplicates are replaced by forward edges where possible, since SCCs saturate quickly
+            int intra = round == 0 ? intraTarget : (canPointForward ? 0 : deficit);
+            int inter = deficit - intra;
+            addIntraEdges(keys, random, lo, hi, intra);
+            addInterEdges(keys, random, lo, hi, inter);
+            keys.sortUnique(lo, hi);
+        }
+
+        // Final attempt: walk the free pairs inside SCCs in order
+        if (keys.size() < required && !canPointForward) {
+            fillIntraSystematically(keys, lo, hi, required - keys.size());
+            keys.sortUnique(lo, hi);
+        }
+
+        long[] result = keys.toArray();
+        int[] weights = new int[result.length];
+        for (int i = 0; i < result.length; i++) {
+            weights[i] = 1 + random.nextInt(config.maxWeight);
+        }
+        return new Partition(result, weights);
+    }
+
+    private void addIntraEdges(LongList keys, SplittableRandom random, int lo, int hi, int count) {
+        for (int i = 0, attempts = 0; i < count && attempts < 4 * count; attempts++) {
+            int u = lo + random.nextInt(hi - lo);
+            int c = componentOf[u];
+            int start = componentStart[c];
+            int size = componentStart[c + 1] - start;
+            if (size < 2) {
+                continue;
+            }
+            int v = start + random.nextInt(size - 1);
+            if (v >= u) {
+                v++;
+            }
+            keys.add(pack(u, v));
+            i++;
+        }
+    }
+
+    private void fillIntraSystematically(LongList keys, int lo, int hi, int count) {
+        int existing = keys.size();
+        for (int u = lo, cursor = 0; u < hi && count > 0; u++) {
+            // Existing keys are sorted, so u's targets are the next run of keys with source u
+            int from = cursor;
+            while (cursor < existing && (int) (keys.get(cursor) >>> 32) == u) {
+                cursor++;
+            }
+            int c = componentOf[u];
+            for (int v = componentStart[c]; v < componentStart[c + 1] && count > 0; v++) {
+                long key = pack(u, v);
+                if (v != u && Arrays.binarySearch(keys.data, from, cursor, key) < 0) {
+                    keys.add(key);
+                    count--;
+                }
+            }
+        }
+    }
+
+    private void addInterEdges(LongList keys, SplittableRandom random, int lo, int hi, int count) {
+        int last = Math.min(hi, forwardLimit());
+        if (count <= 0 || last <= lo) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            int u = lo + random.nextInt(last - lo);
+            int layer = layerOf(u);
+            int target = layer + 1;
+            if (target < layers - 1 && random.nextDouble() >= config.nextLayerBias) {
+                target += random.nextInt(layers - target);
+            }
+            int v = layerStart[target] + random.nextInt(layerStart[target + 1] - layerStart[target]);
+            keys.add(pack(u, v));
+        }
+    }
+
+    // Inverse of the layer layout: component c is in layer k when k * C / L <= c < (k + 1) * C / L
+    private int layerOf(int node) {
+        long c = componentOf[node];
+        return (int) (((c + 1) * layers - 1) / componentCount);
+    }
+
+    private int drawSccSize(SplittableRandom random) {
+        int min = config.minSccSize;
+        int max = config.maxSccSize;
+        if (config.sccSizeExponent <= 1.0) {
+            return min + random.nextInt(max - min + 1);
+        }
+        // Pareto draw, clipped to the configured range
+        double size = min * Math.pow(1.0 - random.nextDouble(), -1.0 / (config.sccSizeExponent - 1.0));
+        return (int) Math.min(max, Math.floor(size));
+    }
+
+    private static long pack(int u, int v) {
+        return ((long) u << 32) | v;
+    }
+
+    // Growable buffer of packed (u, v) keys
+    private static class LongList {
+        private long[] data;
+        private int size;
+
+        LongList(int capacity) {
+            data = new long[Math.max(16, capacity)];
+        }
+
+        void add(long value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, data.length + (data.length >> 1) + 1);
+            }
+            data[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long get(int index) {
+            return data[index];
+        }
+
+        // Keys all have sources in [lo, hi): counting sort by source, then sort + dedup each node's
+        // few targets, which is much cheaper than a comparison sort over the whole partition
+        void sortUnique(int lo, int hi) {
+            int[] offsets = new int[hi - lo + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[(int) (data[i] >>> 32) - lo + 1]++;
+            }
+            for (int k = 0; k < hi - lo; k++) {
+                offsets[k + 1] += offsets[k];
+            }
+
+            int[] cursor = Arrays.copyOf(offsets, hi - lo);
+            int[] targets = new int[size];
+            for (int i = 0; i < size; i++) {
+                targets[cursor[(int) (data[i] >>> 32) - lo]++] = (int) data[i];
+            }
+
+            int unique = 0;
+            for (int k = 0; k < hi - lo; k++) {
+                int from = offsets[k];
+                int to = offsets[k + 1];
+                Arrays.sort(targets, from, to);
+                for (int j = from; j < to; j++) {
+                    if (j == from || targets[j] != targets[j - 1]) {
+                        data[unique++] = pack(lo + k, targets[j]);
+                    }
+                }
+            }
+            size = unique;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.yeah;
+
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.model.Graph;
+import org.yeah.utils.BinaryGraphIO;
+import org.yeah.utils.GraphGenerator;
+import org.yeah.utils.Metrics;
+import org.junit.Test;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.*;
+
+public class BatchRunnerTest {
+
+    @Test
+    public void testFailuresAreIsolatedAndOrderIsKept() throws Exception {
+        File dir = Files.createTempDirectory("batch").toFile();
+        Graph cyclic = GraphGenerator.generateCyclicGraph(200, 600, 5);
+        Graph dag = GraphGenerator.generatePureDAG(300, 900);
+        BinaryGraphIO.write(cyclic, new File(dir, "cyclic.bin").getPath());
+        BinaryGraphIO.write(dag, new File(dir, "dag.bin").getPath());
+        Files.write(new File(dir, "broken.json").toPath(), "{\"n\": 3, \"edges\": [".getBytes());
+
+        File manifest = new File(dir, "manifest.txt");
+        Files.write(manifest.toPath(), Arrays.asList("# nightly set", "cyclic.bin", "", "broken.json", "dag.bin"));
+        List<String> files = BatchRunner.resolveInputs(manifest.getPath());
+        assertEquals(3, files.size());
+
+        BatchRunner.BatchReport report = new BatchRunner(2, null).run(files);
+        assertEquals(3, report.files);
+        assertEquals(2, report.succeeded);
+        assertEquals(1, report.failed);
+
+        assertEquals("cyclic", report.entries.get(0).name);
+        assertEquals("failed", report.entries.get(1).status);
+        assertNotNull(report.entries.get(1).error);
+        assertEquals("dag", report.entries.get(2).name);
+        assertEquals(new TarjanSCC(cyclic, new Metrics()).computeComponents().count, report.entries.get(0).sccCount);
+        assertEquals(300, report.entries.get(2).sccCount);
+        assertEquals(dag.edges.size(), report.entries.get(2).edges);
+
+        // A directory lists the same three files
+        assertEquals(3, BatchRunner.resolveInputs(dir.getPath()).size());
+
+        // A binary copy stands in for its JSON only while the JSON has not been edited since
+        File json = new File(dir, "dag.json");
+        Files.write(json.toPath(), "{\"n\": 1, \"edges\": []}".getBytes());
+        json.setLastModified(new File(dir, "dag.bin").lastModified() - 10_000);
+        assertTrue(BatchRunner.resolveInputs(dir.getPath()).contains(new File(dir, "dag.bin").getPath()));
+        json.setLastModified(new File(dir, "dag.bin").lastModified() + 10_000);
+        List<String> listed = BatchRunner.resolveInputs(dir.getPath());
+        assertEquals(3, listed.size());
+        assertTrue(listed.contains(json.getPath()));
+
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,73 @@
+package org.yeah;
+
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.GraphHeader;
+import org.yeah.utils.BinaryGraphIO;
+import org.yeah.utils.JSONReader;
+import org.yeah.utils.Metrics;
+import org.junit.Test;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import static org.junit.Assert.*;
+
+public class BinaryGraphIOTest {
+
+    @Test
+    public void testMappedGraphMatchesJson() throws Exception {
+        String jsonPath = "data/large3.json";
+        File binary = File.createTempFile("large3", ".bin");
+        binary.deleteOnExit();
+
+        BinaryGraphIO.convert(jsonPath, binary.getPath());
+        CSRGraph expected = JSONReader.readCSR(jsonPath);
+        CSRGraph mapped = BinaryGraphIO.map(binary.getPath());
+
+        GraphHeader header = BinaryGraphIO.readHeader(binary.getPath());
+        GraphHeader jsonHeader = JSONReader.readHeader(jsonPath);
+        assertEquals(jsonHeader.n, header.n);
+        assertEquals(jsonHeader.source, header.source);
+        assertEquals(jsonHeader.weightModel, header.weightModel);
+        assertEquals(jsonHeader.edgeCount, header.edgeCount);
+        // Both loaders carry the header fields, so the cache key needs no second read
+        File withSource = File.createTempFile("source", ".json");
+        withSource.deleteOnExit();
+        Files.write(withSource.toPath(), ("{\"n\": 3, \"source\": 2, \"weightModel\": \"edge\","
+                + " \"edges\": [{\"u\": 2, \"v\": 0, \"w\": 4}]}").getBytes(StandardCharsets.UTF_8));
+        BinaryGraphIO.convert(withSource.getPath(), binary.getPath());
+        CSRGraph parsed = JSONReader.readCSR(withSource.getPath());
+        assertEquals(2, parsed.getSource());
+        assertEquals(2, BinaryGraphIO.map(binary.getPath()).getSource());
+        assertEquals(ResultCache.contentHash(JSONReader.readGraph(withSource.getPath())),
+                ResultCache.contentHash(parsed, parsed.getSource(), null));
+        BinaryGraphIO.convert(jsonPath, binary.getPath());
+
+        assertEquals(expected.n, mapped.n);
+        assertEquals(expected.edgeCount(), mapped.edgeCount());
+        for (int u = 0; u < expected.n; u++) {
+            assertEquals(expected.start(u), mapped.start(u));
+            assertEquals(expected.end(u), mapped.end(u));
+            for (int e = expected.start(u); e < expected.end(u); e++) {
+                assertEquals(expected.target(e), mapped.target(e));
+                assertEquals(expected.weight(e), mapped.weight(e));
+            }
+        }
+
+        SCCResult fromJson = new TarjanSCC(expected, new Metrics()).computeComponents();
+        SCCResult fromBinary = new TarjanSCC(mapped, new Metrics()).computeComponents();
+        assertEquals(fromJson.toLists(), fromBinary.toLists());
+
+        // Files from before node weights say version 1 and still load
+        try (RandomAccessFile file = new RandomAccessFile(binary, "rw")) {
+            file.seek(4);
+            assertEquals(BinaryGraphIO.VERSION, Integer.reverseBytes(file.readInt()));
+            file.seek(4);
+            file.writeInt(Integer.reverseBytes(1));
+        }
+        assertNull(BinaryGraphIO.readHeader(binary.getPath()).nodeWeights);
+        assertEquals(expected.edgeCount(), BinaryGraphIO.map(binary.getPath()).edgeCount());
+    }
+}
@@ -0,0 +1,122 @@
+package org.yeah;
+
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.model.Edge;
+import org.yeah.model.EdgeList;
+import org.yeah.utils.GraphGenerator;
+import org.yeah.utils.Metrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import java.util.*;
+import static org.junit.Assert.*;
+
+public class CSRGraphTest {
+
+    @Test
+    public void testCSRMatchesAdjacencyList() {
+        Graph graph = new Graph();
+        graph.n = 4;
+        graph.edges.add(new Edge(2, 3, 7));
+        graph.edges.add(new Edge(0, 1, 1));
+        graph.edges.add(new Edge(0, 2, 4));
+        graph.edges.add(new Edge(2, 0, 5));
+        graph.buildGraph();
+
+        CSRGraph csr = graph.toCSR();
+
+        assertEquals(4, csr.edgeCount());
+        for (int u = 0; u < graph.n; u++) {
+            List<Edge> neighbors = graph.getNeighbors(u);
+            assertEquals(neighbors.size(), csr.degree(u));
+            for (int i = 0; i < neighbors.size(); i++) {
+                assertEquals(neighbors.get(i).v, csr.target(csr.start(u) + i));
+                assertEquals(neighbors.get(i).w, csr.weight(csr.start(u) + i));
+            }
+        }
+
+        List<List<Integer>> fromGraph = new TarjanSCC(graph, new Metrics()).findSCCs();
+        List<List<Integer>> fromCSR = new TarjanSCC(csr, new Metrics()).findSCCs();
+        assertEquals(fromGraph, fromCSR);
+    }
+
+    @Test
+    public void testEdgeListStoresCopies() throws Exception {
+        Graph graph = new Graph();
+        graph.n = 3;
+        graph.edges.add(new Edge(0, 1, 5));
+        graph.edges.add(1, 2, 6);
+
+        // Materialized edges are copies; writes go through set/setWeight
+        graph.edges.get(0).w = 99;
+        assertEquals(5, graph.edges.w(0));
+        graph.edges.set(0, new Edge(0, 2, 7));
+        graph.edges.setWeight(1, 8);
+        assertEquals(2, graph.edges.v(0));
+        assertEquals(8, graph.edges.get(1).w);
+        graph.edges.remove(0);
+        assertEquals(1, graph.edges.size());
+        assertEquals(1, graph.edges.u(0));
+
+        // The JSON form is unchanged: a plain array of {u, v, w} objects
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writeValueAsString(graph);
+        assertTrue(json.contains("\"edges\":[{\"u\":1,\"v\":2,\"w\":8}]"));
+        assertFalse(json.contains("adjList"));
+        // Files written before the change still carry "adjList": null
+        String old = json.substring(0, json.length() - 1) + ",\"adjList\":null}";
+        Graph read = mapper.readValue(old, Graph.class);
+        assertTrue(read.edges instanceof EdgeList);
+        assertEquals(1, read.edges.size());
+        assertEquals(8, read.edges.w(0));
+    }
+
+    @Test
+    public void testReverseIndexAndReachability() {
+        for (int mode = 0; mode < 3; mode++) {
+            Graph graph = GraphGenerator.generateCyclicGraph(300, 900, 5);
+            if (mode > 0) {
+                graph.buildGraph(true, mode == 2);
+            }
+            CSRGraph csr = graph.toCSR();
+            assertEquals(mode > 0, csr.hasReverse());
+            CSRGraph reverse = graph.toReverseCSR();
+            assertSame(csr, reverse.reverse());
+
+            // Running Tarjan on the Graph keeps both cached directions
+            new TarjanSCC(graph, new Metrics()).computeComponents();
+            assertSame(csr, graph.toCSR());
+            assertSame(reverse, graph.toReverseCSR());
+
+            // Every edge shows up once as a predecessor of its target
+            int[] inDegree = new int[graph.n];
+            for (Edge edge : graph.edges) {
+                inDegree[edge.v]++;
+                boolean found = false;
+                for (Edge in : graph.getPredecessors(edge.v)) {
+                    found |= in.u == edge.u && in.v == edge.v && in.w == edge.w;
+                }
+                assertTrue(found);
+            }
+            assertArrayEquals(inDegree, csr.inDegrees());
+            assertEquals(graph.edges.size(), reverse.edgeCount());
+
+            // u is an ancestor of v exactly when v is a descendant of u
+            for (int u = 0; u < graph.n; u += 37) {
+                Set<Integer> descendants = new HashSet<>();
+                for (int v : graph.descendants(u)) {
+                    descendants.add(v);
+                }
+                assertFalse(descendants.contains(u));
+                for (int v = 0; v < graph.n; v += 11) {
+                    boolean isAncestor = false;
+                    for (int a : graph.ancestors(v)) {
+                        isAncestor |= a == u;
+                    }
+                    assertEquals(u != v && descendants.contains(v), u != v && isAncestor);
+                }
+            }
+        }
+    }
+}
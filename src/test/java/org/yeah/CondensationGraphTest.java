@@ -0,0 +1,45 @@
+package org.yeah;
+
+import org.yeah.graph.scc.CondensationGraph;
+import org.yeah.graph.scc.EdgeWeightPolicy;
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.model.Graph;
+import org.yeah.model.Edge;
+import org.yeah.utils.Metrics;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CondensationGraphTest {
+
+    private Graph buildGraph() {
+        // {0, 1} is a cycle, and three parallel edges lead from it to node 2
+        Graph graph = new Graph();
+        graph.n = 3;
+        graph.edges.add(new Edge(0, 1, 1));
+        graph.edges.add(new Edge(1, 0, 1));
+        graph.edges.add(new Edge(0, 2, 5));
+        graph.edges.add(new Edge(1, 2, 2));
+        graph.edges.add(new Edge(0, 2, 9));
+        return graph;
+    }
+
+    @Test
+    public void testCollapsedEdgeWeightPolicies() {
+        Graph graph = buildGraph();
+        SCCResult components = new TarjanSCC(graph, new Metrics()).computeComponents();
+
+        for (EdgeWeightPolicy policy : EdgeWeightPolicy.values()) {
+            Graph cond = new CondensationGraph(graph, components, policy).getCondensationGraph();
+            assertEquals(2, cond.n);
+            assertEquals(1, cond.edges.size());
+
+            Edge edge = cond.edges.get(0);
+            assertEquals(components.componentOf(0), edge.u);
+            assertEquals(components.componentOf(2), edge.v);
+
+            int expected = policy == EdgeWeightPolicy.FIRST ? 5 : policy == EdgeWeightPolicy.MIN ? 2 : 9;
+            assertEquals(expected, edge.w);
+        }
+    }
+}
@@ -1,12 +1,25 @@
 package org.yeah;
 
 import org.yeah.graph.dagsp.DAGShortestPaths;
+import org.yeah.graph.dagsp.IncrementalCriticalPath;
+import org.yeah.graph.dagsp.MultiSourcePaths;
+import org.yeah.graph.scc.CondensationGraph;
+import org.yeah.graph.scc.EdgeWeightPolicy;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.graph.topo.TopologicalSort;
+import org.yeah.utils.GraphGenerator;
+import org.yeah.model.CSRGraph;
 import org.yeah.model.Graph;
 import org.yeah.model.Edge;
+import org.yeah.utils.BinaryGraphIO;
 import org.yeah.utils.Metrics;
 import org.junit.Test;
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.Assert.*;
 
 public class DAGShortestPathsTest {
@@ -33,4 +46,325 @@ public class DAGShortestPathsTest {
         assertEquals(3, dist[2]);
         assertEquals(6, dist[3]);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFusedAnalysisMatchesSeparateRuns() {
+        Graph graph = new Graph();
+        graph.n = 6;
+        graph.edges.add(new Edge(0, 1, 1));
+        graph.edges.add(new Edge(0, 2, 4));
+        graph.edges.add(new Edge(1, 2, 2));
+        graph.edges.add(new Edge(1, 3, 6));
+        graph.edges.add(new Edge(2, 3, 3));
+        graph.edges.add(new Edge(5, 3, 9));
+        graph.buildGraph();
+
+        DAGShortestPaths dagSP = new DAGShortestPaths(graph, new Metrics());
+        List<Integer> topoOrder = Arrays.asList(5, 0, 1, 2, 3, 4);
+
+        DAGShortestPaths.PathAnalysisResult result = dagSP.analyzeFromSource(0, topoOrder);
+        DAGShortestPaths.CriticalPathResult critical = dagSP.findCriticalPath(0, topoOrder);
+
+        assertArrayEquals(dagSP.shortestPathsFromSource(0, topoOrder), result.shortest);
+        assertArrayEquals(dagSP.longestPathsFromSource(0, topoOrder), result.longest);
+        assertEquals(critical.path, result.criticalPath.path);
+        assertEquals(critical.length, result.criticalPath.length);
+        assertEquals(Arrays.asList(0, 1, 3), result.criticalPath.path);
+        assertEquals(7, result.criticalPath.length);
+        assertEquals(Integer.MAX_VALUE, result.shortest[5]);
+        assertEquals(-1, result.predecessor[4]);
+    }
+
+    @Test
+    public void testMultiSourceRowsMatchSingleSource() {
+        Graph graph = GraphGenerator.generatePureDAG(300, 1200);
+        graph.buildGraph();
+        List<Integer> topoOrder = new TopologicalSort(graph, new Metrics()).topologicalOrderKahn();
+
+        MultiSourcePaths multi = new MultiSourcePaths(graph, topoOrder, new Metrics());
+        DAGShortestPaths single = new DAGShortestPaths(graph, new Metrics());
+
+        int[] sources = new int[40];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = topoOrder.get(i * 7);
+        }
+        int[][] shortest = multi.shortestRows(sources);
+        int[][] longest = multi.longestRows(sources);
+        for (int i = 0; i < sources.length; i++) {
+            assertArrayEquals(single.shortestPathsFromSource(sources[i], topoOrder), shortest[i]);
+            assertArrayEquals(single.longestPathsFromSource(sources[i], topoOrder), longest[i]);
+        }
+
+        AtomicInteger streamed = new AtomicInteger();
+        multi.shortestRows(sources, (source, row) -> {
+            assertArrayEquals(single.shortestPathsFromSource(source, topoOrder), row);
+            streamed.incrementAndGet();
+        });
+        assertEquals(sources.length, streamed.get());
+
+        for (int entry : multi.entryNodes()) {
+            assertEquals(0, new TopologicalSort(graph, new Metrics()).topologicalLevels().levelOf(entry));
+        }
+    }
+
+    @Test
+    public void testIncrementalCriticalPathMatchesFullRecomputation() {
+        Graph graph = GraphGenerator.generatePureDAG(400, 1600);
+        graph.buildGraph();
+        List<Integer> topoOrder = new TopologicalSort(graph, new Metrics()).topologicalOrderKahn();
+        int source = topoOrder.get(0);
+        IncrementalCriticalPath incremental = new IncrementalCriticalPath(graph, source, topoOrder, new Metrics());
+
+        Random random = new Random(3);
+        int m = graph.edges.size();
+        for (int batch = 0; batch < 50; batch++) {
+            int[] edges = new int[1 + random.nextInt(4)];
+            int[] weights = new int[edges.length];
+            for (int i = 0; i < edges.length; i++) {
+                edges[i] = random.nextInt(m);
+                weights[i] = random.nextInt(20);
+            }
+            incremental.updateWeights(edges, weights);
+
+            CSRGraph current = incremental.toCSR();
+            DAGShortestPaths full = new DAGShortestPaths(current, new Metrics());
+            DAGShortestPaths.CriticalPathResult expected = full.findCriticalPath(source, topoOrder);
+            assertArrayEquals(full.longestPathsFromSource(source, topoOrder), incremental.distances());
+            assertEquals(expected.path, incremental.criticalPath().path);
+            assertEquals(expected.length, incremental.length());
+        }
+
+        IncrementalCriticalPath empty = new IncrementalCriticalPath(new Graph(), 0, new ArrayList<>(), new Metrics());
+        assertEquals(0, empty.length());
+        assertTrue(empty.criticalPath().path.isEmpty());
+    }
+
+    @Test
+    public void testMultiSourceAndIncrementalUnderNodeModel() {
+        Graph graph = GraphGenerator.generatePureDAG(300, 1200);
+        Random random = new Random(11);
+        graph.weightModel = "node";
+        graph.nodeWeights = new int[graph.n];
+        for (int v = 0; v < graph.n; v++) {
+            graph.nodeWeights[v] = 1 + random.nextInt(9);
+        }
+        graph.buildGraph();
+        List<Integer> topoOrder = new TopologicalSort(graph, new Metrics()).topologicalOrderKahn();
+        DAGShortestPaths single = new DAGShortestPaths(graph, new Metrics());
+
+        MultiSourcePaths multi = new MultiSourcePaths(graph, topoOrder, new Metrics());
+        int[] sources = {topoOrder.get(0), topoOrder.get(50), topoOrder.get(299)};
+        int[][] shortest = multi.shortestRows(sources);
+        int[][] longest = multi.longestRows(sources);
+        for (int i = 0; i < sources.length; i++) {
+            assertArrayEquals(single.shortestPathsFromSource(sources[i], topoOrder), shortest[i]);
+            assertArrayEquals(single.longestPathsFromSource(sources[i], topoOrder), longest[i]);
+        }
+
+        int source = topoOrder.get(0);
+        IncrementalCriticalPath incremental = new IncrementalCriticalPath(graph, source, topoOrder, new Metrics());
+        assertArrayEquals(single.longestPathsFromSource(source, topoOrder), incremental.distances());
+        for (int batch = 0; batch < 20; batch++) {
+            // The source itself is changed too, since its duration starts every path
+            int[] nodes = {batch == 0 ? source : random.nextInt(graph.n), random.nextInt(graph.n)};
+            int[] durations = {random.nextInt(20), random.nextInt(20)};
+            incremental.updateNodeWeights(nodes, durations);
+
+            DAGShortestPaths full = new DAGShortestPaths(incremental.toCSR(), new Metrics());
+            DAGShortestPaths.CriticalPathResult expected = full.findCriticalPath(source, topoOrder);
+            assertArrayEquals(full.longestPathsFromSource(source, topoOrder), incremental.distances());
+            assertEquals(expected.length, incremental.length());
+        }
+        try {
+            incremental.updateWeight(0, 5);
+            fail("edge weights do not count under the node model");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testNodeWeightModel() throws Exception {
+        Graph graph = new Graph();
+        graph.n = 5;
+        graph.weightModel = "node";
+        graph.nodeWeights = new int[]{2, 3, 5, 1, 4};
+        // Edge weights are ignored under the node model; 3 <-> 4 is a cycle
+        graph.edges.add(new Edge(0, 1, 100));
+        graph.edges.add(new Edge(0, 2, 100));
+        graph.edges.add(new Edge(1, 3, 100));
+        graph.edges.add(new Edge(2, 3, 100));
+        graph.edges.add(new Edge(3, 4, 100));
+        graph.edges.add(new Edge(4, 3, 100));
+        graph.buildGraph();
+
+        // The node weights survive the binary format
+        File binary = File.createTempFile("nodes", ".bin");
+        binary.deleteOnExit();
+        BinaryGraphIO.write(graph, binary.getPath());
+        CSRGraph mapped = BinaryGraphIO.map(binary.getPath());
+        assertEquals("node", mapped.getWeightModel());
+        assertArrayEquals(graph.nodeWeights, mapped.nodeWeightArray());
+
+        CondensationGraph condensation = new CondensationGraph(mapped,
+                new TarjanSCC(mapped, new Metrics()).computeComponents(), EdgeWeightPolicy.FIRST);
+        Graph condGraph = condensation.getCondensationGraph();
+        int cycle = condensation.getComponentOf()[3];
+        assertEquals("node", condGraph.weightModel);
+        assertEquals(5, condGraph.nodeWeights[cycle]);
+
+        List<Integer> order = new TopologicalSort(condGraph, new Metrics()).topologicalOrderKahn();
+        int source = condensation.getComponentOf()[0];
+        DAGShortestPaths.PathAnalysisResult result = new DAGShortestPaths(condGraph, new Metrics())
+                .analyzeFromSource(source, order);
+        // 0 -> 2 -> {3, 4}: 2 + 5 + 5
+        assertEquals(12, result.criticalPath.length);
+        assertEquals(Arrays.asList(source, condensation.getComponentOf()[2], cycle), result.criticalPath.path);
+        assertEquals(2, result.shortest[source]);
+        assertEquals(10, result.shortest[cycle]);
+        assertEquals(5, result.shortest[condensation.getComponentOf()[1]]);
+    }
+
+    @Test
+    public void testSlackMatchesLongestPathsFromEverySource() {
+        CSRGraph dag = GraphGenerator.generatePureDAG(300, 1200).toCSR();
+        List<Integer> order = new TopologicalSort(dag, new Metrics()).topologicalOrderKahn();
+        DAGShortestPaths paths = new DAGShortestPaths(dag, new Metrics());
+        DAGShortestPaths.SlackResult slack = paths.analyzeSlack(order);
+
+        // longest[u][v] is the longest u -> v path, MIN_VALUE when v is unreachable
+        int[][] longest = new int[dag.n][];
+        for (int u = 0; u < dag.n; u++) {
+            longest[u] = paths.longestPathsFromSource(u, order);
+        }
+        long length = 0;
+        for (int v = 0; v < dag.n; v++) {
+            long head = 0;
+            long tail = 0;
+            for (int u = 0; u < dag.n; u++) {
+                head = Math.max(head, longest[u][v]);
+                tail = Math.max(tail, longest[v][u]);
+            }
+            assertEquals(head, slack.earliestStart[v]);
+            length = Math.max(length, head + tail);
+            assertEquals(slack.length - head - tail, slack.slack[v]);
+            assertEquals(slack.slack[v] == 0, slack.isCritical(v));
+        }
+        assertEquals(length, slack.length);
+        assertTrue(paths.findCriticalPath(order.get(0), order).length <= length);
+        for (int node : slack.criticalNodes) {
+            assertEquals(0, slack.slack[node]);
+        }
+    }
+
+    @Test
+    public void testSlackUnderNodeModel() {
+        // Durations 0:2, 1:3, 2:5, 3:1; 0 -> 1 -> 3 and 0 -> 2 -> 3
+        Graph graph = new Graph();
+        graph.n = 4;
+        graph.weightModel = "node";
+        graph.nodeWeights = new int[]{2, 3, 5, 1};
+        graph.edges.add(new Edge(0, 1, 9));
+        graph.edges.add(new Edge(0, 2, 9));
+        graph.edges.add(new Edge(1, 3, 9));
+        graph.edges.add(new Edge(2, 3, 9));
+        graph.buildGraph();
+
+        DAGShortestPaths.SlackResult slack = new DAGShortestPaths(graph, new Metrics())
+                .analyzeSlack(new int[]{0, 1, 2, 3});
+        assertEquals(8, slack.length);
+        assertArrayEquals(new long[]{0, 2, 2, 7}, slack.earliestStart);
+        assertArrayEquals(new long[]{0, 4, 2, 7}, slack.latestStart);
+        assertArrayEquals(new int[]{0, 2, 3}, slack.criticalNodes);
+    }
+
+    @Test
+    public void testLongDistancesAndOverflowModes() {
+        // Four edges of a billion each: the longest distance passes Integer.MAX_VALUE after the third
+        Graph chain = new Graph();
+        chain.n = 5;
+        for (int i = 0; i < 4; i++) {
+            chain.edges.add(new Edge(i, i + 1, 1_000_000_000));
+        }
+        chain.buildGraph();
+        List<Integer> order = Arrays.asList(0, 1, 2, 3, 4);
+        DAGShortestPaths paths = new DAGShortestPaths(chain, new Metrics());
+        assertEquals(1_000_000_000L, chain.toCSR().maxAbsWeight());
+        assertEquals(5_000_000_000L, paths.pathBound());
+        assertFalse(paths.fitsInt());
+
+        DAGShortestPaths.LongPathAnalysisResult wide = paths.analyzeFromSourceLong(0, order);
+        assertEquals(4_000_000_000L, wide.longest[4]);
+        assertEquals(4_000_000_000L, wide.criticalPath.length);
+        assertArrayEquals(wide.shortest, paths.shortestPathsLong(0, order));
+        assertArrayEquals(wide.longest, paths.longestPathsLong(0, order));
+
+        // Past the bound, sums that never saturate come straight from the int loop
+        assertEquals(2_000_000_000, paths.longestPathsFromSource(2, order)[4]);
+        try {
+            paths.analyzeFromSource(0, order);
+            fail("expected overflow");
+        } catch (ArithmeticException expected) {
+        }
+        paths.setOverflow(DAGShortestPaths.Overflow.SATURATING);
+        int[] saturated = paths.longestPathsFromSource(1, order);
+        assertEquals(Integer.MIN_VALUE, saturated[0]);
+        assertEquals(2_000_000_000, saturated[3]);
+        assertEquals(Integer.MAX_VALUE - 1, saturated[4]);
+        assertEquals(Integer.MAX_VALUE - 1, paths.findCriticalPath(0, order).length);
+
+        // Bounded weights stay on the int loops and agree with the long engine
+        CSRGraph dag = GraphGenerator.generatePureDAG(500, 2000).toCSR();
+        List<Integer> dagOrder = new TopologicalSort(dag, new Metrics()).topologicalOrderKahn();
+        DAGShortestPaths bounded = new DAGShortestPaths(dag, new Metrics());
+        assertTrue(bounded.fitsInt());
+        int source = dagOrder.get(0);
+        DAGShortestPaths.PathAnalysisResult narrow = bounded.analyzeFromSource(source, dagOrder);
+        DAGShortestPaths.LongPathAnalysisResult widened = bounded.analyzeFromSourceLong(source, dagOrder);
+        for (int v = 0; v < dag.n; v++) {
+            assertEquals(narrow.shortest[v] == Integer.MAX_VALUE ? Long.MAX_VALUE : narrow.shortest[v], widened.shortest[v]);
+            assertEquals(narrow.longest[v] == Integer.MIN_VALUE ? Long.MIN_VALUE : narrow.longest[v], widened.longest[v]);
+        }
+        assertEquals(narrow.criticalPath.path, widened.criticalPath.path);
+    }
+
+    @Test
+    public void testOverflowInMultiSourceAndIncremental() {
+        Graph chain = new Graph();
+        chain.n = 5;
+        for (int i = 0; i < 4; i++) {
+            chain.edges.add(new Edge(i, i + 1, 1_000_000_000));
+        }
+        chain.buildGraph();
+        List<Integer> order = Arrays.asList(0, 1, 2, 3, 4);
+
+        // Rows that stay in range are exact past the bound; the one that does not throws
+        MultiSourcePaths multi = new MultiSourcePaths(chain, order, new Metrics());
+        assertEquals(2_000_000_000, multi.longestRows(new int[]{2})[0][4]);
+        try {
+            multi.longestRows(new int[]{0});
+            fail("expected overflow");
+        } catch (ArithmeticException expected) {
+        }
+
+        try {
+            new IncrementalCriticalPath(chain, 0, order, new Metrics());
+            fail("expected the bound to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        Graph small = new Graph();
+        small.n = 5;
+        for (int i = 0; i < 4; i++) {
+            small.edges.add(new Edge(i, i + 1, 1));
+        }
+        small.buildGraph();
+        IncrementalCriticalPath incremental = new IncrementalCriticalPath(small, 0, order, new Metrics());
+        try {
+            incremental.updateWeights(new int[]{0, 3}, new int[]{2, 1_000_000_000});
+            fail("expected the update to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        // Nothing from the rejected batch was applied
+        assertEquals(1, incremental.weight(0));
+        assertEquals(4, incremental.length());
+    }
+}
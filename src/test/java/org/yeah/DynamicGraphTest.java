@@ -0,0 +1,140 @@
+package org.yeah;
+
+import org.yeah.graph.dagsp.DAGShortestPaths;
+import org.yeah.graph.dynamic.DynamicGraph;
+import org.yeah.graph.dynamic.EdgeUpdate;
+import org.yeah.graph.scc.CondensationGraph;
+import org.yeah.graph.scc.EdgeWeightPolicy;
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.model.Graph;
+import org.yeah.model.Edge;
+import org.yeah.utils.Metrics;
+import org.junit.Test;
+import java.util.*;
+import static org.junit.Assert.*;
+
+public class DynamicGraphTest {
+
+    @Test
+    public void testCycleMergesAndSplitsBack() {
+        Graph graph = new Graph();
+        graph.n = 4;
+        graph.edges.add(new Edge(0, 1, 1));
+        graph.edges.add(new Edge(1, 2, 1));
+        graph.edges.add(new Edge(2, 3, 1));
+        DynamicGraph dynamic = new DynamicGraph(graph, new Metrics());
+        assertEquals(4, dynamic.componentCount());
+
+        dynamic.insertEdge(3, 0, 1);
+        assertEquals(1, dynamic.componentCount());
+        assertTrue(dynamic.sameComponent(0, 3));
+
+        // Without 1 -> 2 the order has to become 2, 3, 0, 1
+        assertTrue(dynamic.deleteEdge(1, 2));
+        assertFalse(dynamic.deleteEdge(1, 2));
+        assertEquals(4, dynamic.componentCount());
+        SCCResult components = dynamic.toSCCResult();
+        assertTrue(components.componentOf(2) < components.componentOf(3));
+        assertTrue(components.componentOf(3) < components.componentOf(0));
+        assertTrue(components.componentOf(0) < components.componentOf(1));
+    }
+
+    @Test
+    public void testNodeWeightsFollowComponents() {
+        Graph graph = new Graph();
+        graph.n = 3;
+        graph.weightModel = "node";
+        graph.nodeWeights = new int[]{2, 3, 4};
+        graph.edges.add(new Edge(0, 1, 1));
+        graph.edges.add(new Edge(1, 2, 1));
+        DynamicGraph dynamic = new DynamicGraph(graph, new Metrics());
+
+        Graph snapshot = dynamic.toGraph();
+        assertEquals("node", snapshot.weightModel);
+        assertArrayEquals(graph.nodeWeights, snapshot.nodeWeights);
+        assertEquals(9, new DAGShortestPaths(snapshot, new Metrics())
+                .findCriticalPath(0, Arrays.asList(0, 1, 2)).length);
+
+        // Merging 1 and 2 makes one component lasting 7
+        dynamic.insertEdge(2, 1, 1);
+        Graph condensation = dynamic.condensationGraph();
+        assertEquals("node", condensation.weightModel);
+        assertArrayEquals(new int[]{2, 7}, condensation.nodeWeights);
+        Graph recomputed = new CondensationGraph(dynamic.toGraph(), dynamic.toSCCResult(), EdgeWeightPolicy.MIN)
+                .getCondensationGraph();
+        assertArrayEquals(recomputed.nodeWeights, condensation.nodeWeights);
+        assertEquals(9, new DAGShortestPaths(condensation, new Metrics())
+                .findCriticalPath(0, Arrays.asList(0, 1)).length);
+    }
+
+    @Test
+    public void testRandomBatchesMatchRecomputation() {
+        Random random = new Random(7);
+        int n = 300;
+        Graph graph = new Graph();
+        graph.n = n;
+        for (int i = 0; i < 2 * n; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(8) == 0 ? random.nextInt(n) : Math.min(n - 1, u + 1 + random.nextInt(20));
+            graph.edges.add(new Edge(u, v, 1 + random.nextInt(9)));
+        }
+        DynamicGraph dynamic = new DynamicGraph(graph, EdgeWeightPolicy.MIN, new Metrics());
+
+        for (int batch = 0; batch < 40; batch++) {
+            List<Edge> current = dynamic.toGraph().edges;
+            List<EdgeUpdate> updates = new ArrayList<>();
+            for (int i = 0; i < 15; i++) {
+                if (random.nextBoolean() && !current.isEmpty()) {
+                    Edge edge = current.get(random.nextInt(current.size()));
+                    updates.add(EdgeUpdate.delete(edge.u, edge.v));
+                } else {
+                    updates.add(EdgeUpdate.insert(random.nextInt(n), random.nextInt(n), 1 + random.nextInt(9)));
+                }
+            }
+            dynamic.apply(updates);
+            assertMatchesRecomputation(dynamic);
+        }
+    }
+
+    private void assertMatchesRecomputation(DynamicGraph dynamic) {
+        Graph snapshot = dynamic.toGraph();
+        assertEquals(snapshot.edges.size(), dynamic.edgeCount());
+        SCCResult expected = new TarjanSCC(snapshot, new Metrics()).computeComponents();
+        SCCResult actual = dynamic.toSCCResult();
+        assertEquals(expected.count, actual.count);
+        assertEquals(expected.count, dynamic.componentCount());
+
+        // Same partition, and every edge between components respects the topological numbering
+        int[] mapping = new int[expected.count];
+        Arrays.fill(mapping, -1);
+        for (int node = 0; node < snapshot.n; node++) {
+            int c = expected.componentOf(node);
+            if (mapping[c] == -1) {
+                mapping[c] = actual.componentOf(node);
+            }
+            assertEquals(mapping[c], actual.componentOf(node));
+        }
+        for (Edge edge : snapshot.edges) {
+            assertTrue(actual.componentOf(edge.u) <= actual.componentOf(edge.v));
+        }
+
+        // Same condensation edges and weights, keyed by the smallest member of each component
+        Graph recomputed = new CondensationGraph(snapshot, expected, EdgeWeightPolicy.MIN).getCondensationGraph();
+        assertEquals(condensationKeys(recomputed, expected), condensationKeys(dynamic.condensationGraph(), actual));
+    }
+
+    private Set<String> condensationKeys(Graph condensation, SCCResult components) {
+        int[] smallest = new int[components.count];
+        Arrays.fill(smallest, Integer.MAX_VALUE);
+        for (int node = 0; node < components.nodeCount(); node++) {
+            int c = components.componentOf(node);
+            smallest[c] = Math.min(smallest[c], node);
+        }
+        Set<String> keys = new HashSet<>();
+        for (Edge edge : condensation.edges) {
+            keys.add(smallest[edge.u] + "->" + smallest[edge.v] + ":" + edge.w);
+        }
+        return keys;
+    }
+}
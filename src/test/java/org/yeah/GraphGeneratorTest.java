@@ -0,0 +1,61 @@
+package org.yeah;
+
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.model.CSRGraph;
+import org.yeah.utils.JSONReader;
+import org.yeah.utils.Metrics;
+import org.yeah.utils.ScalableGraphGenerator;
+import org.junit.Test;
+import java.io.File;
+import static org.junit.Assert.*;
+
+public class GraphGeneratorTest {
+
+    private static ScalableGraphGenerator.Config config() {
+        ScalableGraphGenerator.Config config = new ScalableGraphGenerator.Config();
+        config.nodes = 50000;
+        config.edges = 200000;
+        config.seed = 7;
+        config.maxSccSize = 20;
+        config.partitionSize = 4096;
+        return config;
+    }
+
+    @Test
+    public void testScalableGeneratorShape() throws Exception {
+        ScalableGraphGenerator generator = new ScalableGraphGenerator(config());
+        CSRGraph graph = generator.generate();
+
+        assertEquals(50000, graph.n);
+        assertEquals(200000, graph.edgeCount());
+        for (int u = 0; u < graph.n; u++) {
+            for (int e = graph.start(u) + 1; e < graph.end(u); e++) {
+                // Targets are sorted and unique per node, and there are no self-loops
+                assertTrue(graph.target(e - 1) < graph.target(e));
+                assertNotEquals(u, graph.target(e));
+            }
+        }
+
+        // Inter-component edges only point forward, so Tarjan finds exactly the planned SCCs
+        SCCResult components = new TarjanSCC(graph, new Metrics()).computeComponents();
+        assertEquals(generator.componentCount(), components.count);
+        for (int c = 0; c < components.count; c++) {
+            assertTrue(components.size(c) <= 20);
+        }
+
+        // Same config gives the same graph
+        CSRGraph again = new ScalableGraphGenerator(config()).generate();
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            assertEquals(graph.target(e), again.target(e));
+            assertEquals(graph.weight(e), again.weight(e));
+        }
+
+        File json = File.createTempFile("generated", ".json");
+        json.deleteOnExit();
+        generator.writeJson(json.getPath());
+        CSRGraph loaded = JSONReader.readCSR(json.getPath());
+        assertEquals(graph.edgeCount(), loaded.edgeCount());
+        assertEquals(graph.target(graph.edgeCount() - 1), loaded.target(loaded.edgeCount() - 1));
+    }
+}
@@ -0,0 +1,43 @@
+package org.yeah;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.utils.JSONReader;
+import org.junit.Test;
+import java.io.File;
+import static org.junit.Assert.*;
+
+public class JSONReaderTest {
+
+    private static void assertSameCSR(CSRGraph expected, CSRGraph actual) {
+        assertEquals(expected.n, actual.n);
+        assertEquals(expected.edgeCount(), actual.edgeCount());
+        for (int u = 0; u < expected.n; u++) {
+            assertEquals(expected.start(u), actual.start(u));
+            for (int e = expected.start(u); e < expected.end(u); e++) {
+                assertEquals(expected.target(e), actual.target(e));
+                assertEquals(expected.weight(e), actual.weight(e));
+            }
+        }
+    }
+
+    @Test
+    public void testStreamingLoadersMatchDatabind() throws Exception {
+        for (String name : new String[]{"small1", "medium2", "large3"}) {
+            String path = "data/" + name + ".json";
+            Graph expected = new ObjectMapper().readValue(new File(path), Graph.class);
+
+            Graph graph = JSONReader.readGraph(path);
+            assertEquals(expected.n, graph.n);
+            assertEquals(expected.source, graph.source);
+            assertEquals(expected.weightModel, graph.weightModel);
+            assertEquals(expected.edges.size(), graph.edges.size());
+
+            assertSameCSR(expected.toCSR(), graph.toCSR());
+            assertSameCSR(expected.toCSR(), JSONReader.readCSR(path));
+            assertSameCSR(expected.toCSR(), JSONReader.readCSRBounded(path));
+            assertEquals(expected.edges.size(), JSONReader.readHeader(path).edgeCount);
+        }
+    }
+}
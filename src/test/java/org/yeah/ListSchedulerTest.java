@@ -0,0 +1,84 @@
+package org.yeah;
+
+import org.yeah.graph.schedule.ListScheduler;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Edge;
+import org.yeah.model.Graph;
+import org.yeah.utils.GraphGenerator;
+import org.yeah.utils.Metrics;
+import org.junit.Test;
+import java.util.*;
+import static org.junit.Assert.*;
+
+public class ListSchedulerTest {
+
+    @Test
+    public void testCriticalPathFirst() {
+        // 0 -> 1 -> 2 is the long chain; 3 and 4 are short independent tasks
+        Graph graph = new Graph();
+        graph.n = 5;
+        graph.edges.add(new Edge(0, 1, 1));
+        graph.edges.add(new Edge(1, 2, 1));
+        graph.buildGraph();
+        int[] durations = {3, 3, 3, 2, 2};
+
+        ListScheduler.Schedule schedule = new ListScheduler(graph, new Metrics()).schedule(durations, 2);
+        assertEquals(9, schedule.criticalPathLength);
+        assertEquals(9, schedule.makespan);
+        assertEquals(0, schedule.start[0]);
+        assertEquals(schedule.worker[0], schedule.worker[1]);
+        assertEquals(0, schedule.start[3]);
+        assertEquals(2, schedule.start[4]);
+
+        assertEquals(13, new ListScheduler(graph, new Metrics()).schedule(durations, 1).makespan);
+    }
+
+    @Test
+    public void testScheduleIsFeasible() {
+        CSRGraph dag = GraphGenerator.generatePureDAG(2000, 8000).toCSR();
+        Random random = new Random(3);
+        int[] durations = new int[dag.n];
+        for (int i = 0; i < dag.n; i++) {
+            durations[i] = random.nextInt(20);
+        }
+
+        for (int workers : new int[]{1, 3, 16, 5000}) {
+            ListScheduler.Schedule schedule = new ListScheduler(dag, new Metrics()).schedule(durations, workers);
+            for (int u = 0; u < dag.n; u++) {
+                assertEquals(schedule.start[u] + durations[u], schedule.end[u]);
+                assertTrue(schedule.end[u] <= schedule.makespan);
+                for (int e = dag.start(u); e < dag.end(u); e++) {
+                    assertTrue(schedule.end[u] <= schedule.start[dag.target(e)]);
+                }
+            }
+
+            // No worker runs two tasks at once
+            Integer[] byStart = new Integer[dag.n];
+            for (int i = 0; i < dag.n; i++) {
+                byStart[i] = i;
+            }
+            Arrays.sort(byStart, Comparator.comparingLong((Integer t) -> schedule.start[t]).thenComparingLong(t -> schedule.end[t]));
+            long[] busyUntil = new long[workers];
+            for (int task : byStart) {
+                int w = schedule.worker[task];
+                assertTrue(w >= 0 && w < workers);
+                assertTrue(busyUntil[w] <= schedule.start[task]);
+                busyUntil[w] = schedule.end[task];
+            }
+
+            long lowerBound = Math.max(schedule.criticalPathLength, (schedule.totalWork + workers - 1) / workers);
+            assertTrue(schedule.makespan >= lowerBound);
+            if (workers == 1) {
+                assertEquals(schedule.totalWork, schedule.makespan);
+            }
+            if (workers >= dag.n) {
+                assertEquals(schedule.criticalPathLength, schedule.makespan);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCycleIsRejected() {
+        new ListScheduler(GraphGenerator.generateCyclicGraph(50, 150, 3), new Metrics()).schedule(4);
+    }
+}
@@ -0,0 +1,97 @@
+package org.yeah;
+
+import org.yeah.graph.scc.ParallelSCC;
+import org.yeah.utils.GraphGenerator;
+import org.yeah.utils.LatencyHistogram;
+import org.yeah.utils.Metrics;
+import org.yeah.utils.MetricsExporter;
+import org.junit.Test;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.IntStream;
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Test
+    public void testCountersFromManyThreads() {
+        Metrics metrics = new Metrics();
+        IntStream.range(0, 100_000).parallel().forEach(i -> metrics.addRelaxations(3));
+        assertEquals(300_000L, metrics.getRelaxations());
+
+        // Counts past the int range no longer wrap around
+        metrics.addRelaxations(Integer.MAX_VALUE);
+        assertEquals(300_000L + Integer.MAX_VALUE, metrics.getRelaxations());
+
+        metrics.reset();
+        assertEquals(0, metrics.getRelaxations());
+    }
+
+    @Test
+    public void testStagePercentiles() {
+        Metrics metrics = new Metrics();
+        for (int i = 1; i <= 1000; i++) {
+            metrics.recordStage("scc", i * 1000L);
+        }
+        metrics.stage("topo").stop();
+
+        LatencyHistogram scc = metrics.getStage("scc");
+        assertEquals(1000, scc.count());
+        assertEquals(1000, scc.min());
+        assertEquals(1_000_000, scc.max());
+        // Buckets are at most 1/8 wide relative to their values
+        assertEquals(500_000, scc.percentile(50), 500_000 / 8.0);
+        assertEquals(990_000, scc.percentile(99), 990_000 / 8.0);
+        assertEquals(1, metrics.getStage("topo").count());
+        assertEquals(java.util.Arrays.asList("scc", "topo"), metrics.getStageNames());
+    }
+
+    @Test
+    public void testDisabledMetricsRecordNothing() {
+        Metrics metrics = Metrics.disabled();
+        assertFalse(metrics.isEnabled());
+        new ParallelSCC(GraphGenerator.generatePureDAG(500, 2000), metrics).computeComponents();
+        Metrics.Stage stage = metrics.stage("scc");
+        stage.stop();
+        assertTrue(stage.getElapsedNanos() >= 0);
+        assertNull(stage.getCounters());
+        assertEquals(0, stage.getCounter("dfs_visits"));
+        assertEquals(-1, stage.getAllocatedBytes());
+
+        assertEquals(0, metrics.getDfsVisits());
+        assertNull(metrics.getStage("scc"));
+    }
+
+    @Test
+    public void testExportFormats() throws Exception {
+        Metrics metrics = new Metrics();
+        Metrics.Stage stage = metrics.stage("scc");
+        metrics.addDfsVisits(42);
+        MetricsExporter exporter = new MetricsExporter(1000L);
+        exporter.record("small1", 6, 8, stage);
+        assertEquals(42, stage.getCounters()[Metrics.COUNTER_NAMES.indexOf("dfs_visits")]);
+
+        File dir = Files.createTempDirectory("metrics").toFile();
+        exporter.writeAll(dir.getPath());
+        exporter.writeAll(dir.getPath());
+
+        // JSON lines and CSV accumulate runs, the CSV header is written once
+        List<String> json = Files.readAllLines(new File(dir, "metrics.jsonl").toPath());
+        assertEquals(2, json.size());
+        assertTrue(json.get(0).startsWith("{\"timestamp\":1000,\"dataset\":\"small1\",\"stage\":\"scc\",\"nodes\":6"));
+        assertTrue(json.get(0).contains("\"dfs_visits\":42"));
+        List<String> csv = Files.readAllLines(new File(dir, "metrics.csv").toPath());
+        assertEquals(3, csv.size());
+        assertTrue(csv.get(0).startsWith("timestamp,dataset,stage,nodes,edges,elapsed_nanos"));
+
+        List<String> prom = Files.readAllLines(new File(dir, "metrics.prom").toPath());
+        assertTrue(prom.contains("graph_stage_operations{dataset=\"small1\",stage=\"scc\",counter=\"dfs_visits\"} 42"));
+        assertTrue(prom.contains("graph_stage_input_nodes{dataset=\"small1\",stage=\"scc\"} 6"));
+
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+}
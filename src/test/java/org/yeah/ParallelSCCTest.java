@@ -0,0 +1,44 @@
+package org.yeah;
+
+import org.yeah.graph.scc.ParallelSCC;
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.model.Graph;
+import org.yeah.model.Edge;
+import org.yeah.utils.Metrics;
+import org.junit.Test;
+import java.util.Random;
+import static org.junit.Assert.*;
+
+public class ParallelSCCTest {
+
+    @Test
+    public void testParallelMatchesTarjan() {
+        Random random = new Random(42);
+        int n = 20000;
+        Graph graph = new Graph();
+        graph.n = n;
+        for (int i = 0; i < 3 * n; i++) {
+            // Mostly forward edges with some back edges to create cycles of varied sizes
+            int u = random.nextInt(n);
+            int v = random.nextInt(10) == 0 ? random.nextInt(n) : Math.min(n - 1, u + 1 + random.nextInt(50));
+            graph.edges.add(new Edge(u, v, 1 + random.nextInt(5)));
+        }
+
+        SCCResult sequential = new TarjanSCC(graph, new Metrics()).computeComponents();
+        SCCResult parallel = new ParallelSCC(graph, new Metrics()).computeComponents();
+
+        assertEquals(sequential.count, parallel.count);
+        // Same partition: two nodes share a component in one result exactly when they do in the other
+        int[] mapping = new int[sequential.count];
+        java.util.Arrays.fill(mapping, -1);
+        for (int node = 0; node < n; node++) {
+            int s = sequential.componentOf(node);
+            if (mapping[s] == -1) {
+                mapping[s] = parallel.componentOf(node);
+            }
+            assertEquals(mapping[s], parallel.componentOf(node));
+            assertEquals(sequential.size(s), parallel.size(parallel.componentOf(node)));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.yeah;
+
+import org.yeah.graph.reach.ReachabilityIndex;
+import org.yeah.graph.scc.CondensationGraph;
+import org.yeah.graph.scc.EdgeWeightPolicy;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.model.CSRGraph;
+import org.yeah.model.Graph;
+import org.yeah.utils.GraphGenerator;
+import org.yeah.utils.Metrics;
+import org.junit.Test;
+import java.util.*;
+import static org.junit.Assert.*;
+
+public class ReachabilityIndexTest {
+
+    @Test
+    public void testClosureAndLabelsMatchSearch() {
+        check(GraphGenerator.generateCyclicGraph(400, 700, 8));
+        check(GraphGenerator.generatePureDAG(300, 600));
+    }
+
+    private static void check(Graph graph) {
+        CondensationGraph condensation = new CondensationGraph(graph.toCSR(),
+                new TarjanSCC(graph, new Metrics()).computeComponents(), EdgeWeightPolicy.MIN);
+
+        ReachabilityIndex closure = new ReachabilityIndex(condensation, Long.MAX_VALUE, new Metrics());
+        ReachabilityIndex labels = new ReachabilityIndex(condensation, 1, new Metrics());
+        assertTrue(closure.usesClosure());
+        assertFalse(labels.usesClosure());
+        assertEquals(1, labels.labelCount());
+        int k = condensation.getCondensationGraph().n;
+        // Rank array plus three pairs of label arrays
+        long budget = 16 + 4L * k + 3 * 2 * (16 + 4L * k);
+        ReachabilityIndex threeLabels = new ReachabilityIndex(condensation, budget, new Metrics());
+        assertEquals(3, threeLabels.labelCount());
+        assertEquals(budget, threeLabels.memoryBytes());
+
+        CSRGraph csr = graph.toCSR();
+        for (int u = 0; u < graph.n; u++) {
+            BitSet expected = new BitSet();
+            expected.set(u);
+            for (int v : csr.descendants(u)) {
+                expected.set(v);
+            }
+            for (int v = 0; v < graph.n; v++) {
+                assertEquals(u + " -> " + v, expected.get(v), closure.reaches(u, v));
+                assertEquals(u + " -> " + v, expected.get(v), labels.reaches(u, v));
+                assertEquals(u + " -> " + v, expected.get(v), threeLabels.reaches(u, v));
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.yeah;
+
+import org.yeah.model.Graph;
+import org.yeah.utils.GraphGenerator;
+import org.yeah.utils.Metrics;
+import org.junit.Test;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    @Test
+    public void testHitMatchesFreshAnalysis() throws Exception {
+        File dir = Files.createTempDirectory("cache").toFile();
+        Graph graph = GraphGenerator.generateCyclicGraph(300, 900, 6);
+        ResultCache cache = new ResultCache(dir.getPath(), 1 << 20);
+        AnalysisPipeline pipeline = new AnalysisPipeline(false, true, cache);
+
+        AnalysisResult fresh = pipeline.run("g", graph::toCSR, null, new Metrics());
+        AnalysisResult cached = pipeline.run("g", graph::toCSR, null, new Metrics());
+        assertFalse(fresh.cached);
+        assertTrue(cached.cached);
+        assertEquals(1, cache.getHits());
+        assertNull(cached.getStage("scc"));
+
+        assertEquals(fresh.components.count, cached.components.count);
+        assertArrayEquals(fresh.components.componentArray(), cached.components.componentArray());
+        assertEquals(fresh.components.toLists(), cached.components.toLists());
+        assertEquals(fresh.condensation.edges.size(), cached.condensation.edges.size());
+        assertEquals(fresh.componentOrder, cached.componentOrder);
+        assertEquals(fresh.taskOrder, cached.taskOrder);
+        assertEquals(fresh.waves.getOrder(), cached.waves.getOrder());
+        assertEquals(fresh.waves.levelOf(fresh.componentOrder.get(0)), cached.waves.levelOf(fresh.componentOrder.get(0)));
+        assertEquals(fresh.sourceComponent, cached.sourceComponent);
+        assertArrayEquals(fresh.paths.shortest, cached.paths.shortest);
+        assertArrayEquals(fresh.paths.longest, cached.paths.longest);
+        assertEquals(fresh.paths.criticalPath.path, cached.paths.criticalPath.path);
+        assertEquals(fresh.paths.criticalPath.length, cached.paths.criticalPath.length);
+
+        // A cache opened later sees the same entry
+        assertTrue(new AnalysisPipeline(false, true, new ResultCache(dir.getPath(), 1 << 20))
+                .run("g", graph::toCSR, null, new Metrics()).cached);
+
+        deleteAll(dir);
+    }
+
+    @Test
+    public void testContentHashAndEviction() throws Exception {
+        Graph graph = GraphGenerator.generatePureDAG(200, 600);
+        long key = ResultCache.contentHash(graph);
+        graph.edges.setWeight(7, graph.edges.w(7) + 1);
+        graph.buildGraph();
+        assertNotEquals(key, ResultCache.contentHash(graph));
+        graph.source = 5;
+        assertNotEquals(ResultCache.contentHash(graph), key);
+
+        // Room for about two entries: the least recently used one goes first
+        File dir = Files.createTempDirectory("cache").toFile();
+        Graph[] graphs = new Graph[3];
+        for (int i = 0; i < graphs.length; i++) {
+            graphs[i] = GraphGenerator.generateCyclicGraph(100, 300, 4 + i);
+        }
+        AnalysisPipeline probe = new AnalysisPipeline(false, false, new ResultCache(dir.getPath(), Long.MAX_VALUE));
+        probe.run("a", graphs[0]::toCSR, null, new Metrics());
+        long entryBytes = dir.listFiles()[0].length();
+
+        ResultCache cache = new ResultCache(dir.getPath(), entryBytes * 5 / 2);
+        AnalysisPipeline pipeline = new AnalysisPipeline(false, false, cache);
+        pipeline.run("b", graphs[1]::toCSR, null, new Metrics());
+        assertTrue(pipeline.run("a", graphs[0]::toCSR, null, new Metrics()).cached);
+        pipeline.run("c", graphs[2]::toCSR, null, new Metrics());
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.totalBytes() <= entryBytes * 5 / 2);
+        assertTrue(pipeline.run("a", graphs[0]::toCSR, null, new Metrics()).cached);
+        assertFalse(pipeline.run("b", graphs[1]::toCSR, null, new Metrics()).cached);
+
+        deleteAll(dir);
+    }
+
+    @Test
+    public void testCorruptEntryIsRecomputed() throws Exception {
+        File dir = Files.createTempDirectory("cache").toFile();
+        Graph graph = GraphGenerator.generateCyclicGraph(200, 600, 5);
+        ResultCache cache = new ResultCache(dir.getPath(), 1 << 20);
+        AnalysisPipeline pipeline = new AnalysisPipeline(false, false, cache);
+        AnalysisResult fresh = pipeline.run("g", graph::toCSR, null, new Metrics());
+        File entry = dir.listFiles()[0];
+        long length = entry.length();
+
+        // A negative and a huge SCC count right after the header, then a truncated file
+        int[] counts = {-5, Integer.MAX_VALUE};
+        for (int count : counts) {
+            try (RandomAccessFile file = new RandomAccessFile(entry, "rw")) {
+                file.seek(28);
+                file.writeInt(count);
+            }
+            AnalysisResult recomputed = pipeline.run("g", graph::toCSR, null, new Metrics());
+            assertFalse(recomputed.cached);
+            assertEquals(fresh.componentOrder, recomputed.componentOrder);
+            assertEquals(length, entry.length());
+        }
+        try (RandomAccessFile file = new RandomAccessFile(entry, "rw")) {
+            file.setLength(length / 2);
+        }
+        AnalysisResult recomputed = pipeline.run("g", graph::toCSR, null, new Metrics());
+        assertFalse(recomputed.cached);
+        assertArrayEquals(fresh.paths.longest, recomputed.paths.longest);
+        // The first run plus one per corrupt entry
+        assertEquals(4, cache.getMisses());
+
+        // Each bad entry was replaced by a good one
+        assertTrue(pipeline.run("g", graph::toCSR, null, new Metrics()).cached);
+        assertEquals(1, cache.size());
+        assertEquals(length, cache.totalBytes());
+
+        deleteAll(dir);
+    }
+
+    private static void deleteAll(File dir) {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+}
@@ -1,5 +1,6 @@
 package org.yeah;
 
+import org.yeah.graph.scc.SCCResult;
 import org.yeah.graph.scc.TarjanSCC;
 import org.yeah.model.Graph;
 import org.yeah.model.Edge;
@@ -32,4 +33,25 @@ public class SCCTest {
         }
         assertTrue(foundSize3 && foundSize1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSCCLongChainDoesNotOverflowStack() {
+        int n = 200000;
+        Graph graph = new Graph();
+        graph.n = n;
+        for (int i = 0; i < n - 1; i++) {
+            graph.edges.add(new Edge(i, i + 1, 1));
+        }
+        // Close a cycle over the second half of the chain
+        graph.edges.add(new Edge(n - 1, n / 2, 1));
+
+        Metrics metrics = new Metrics();
+        SCCResult result = new TarjanSCC(graph, metrics).computeComponents();
+
+        assertEquals(n / 2 + 1, result.count);
+        assertEquals(n / 2, result.size(result.componentOf(n - 1)));
+        assertEquals(result.componentOf(n / 2), result.componentOf(n - 1));
+        assertNotEquals(result.componentOf(0), result.componentOf(1));
+        assertEquals(n, metrics.getDfsVisits());
+    }
+}
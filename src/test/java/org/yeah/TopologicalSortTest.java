@@ -1,11 +1,20 @@
 package org.yeah;
 
+import org.yeah.graph.scc.CondensationGraph;
+import org.yeah.graph.scc.SCCResult;
+import org.yeah.graph.scc.TarjanSCC;
+import org.yeah.graph.topo.TaskOrderView;
+import org.yeah.graph.topo.TopologicalLevels;
 import org.yeah.graph.topo.TopologicalSort;
 import org.yeah.model.Graph;
 import org.yeah.model.Edge;
+import org.yeah.utils.GraphGenerator;
 import org.yeah.utils.Metrics;
 import org.junit.Test;
+import java.util.Arrays;
 import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
 import static org.junit.Assert.*;
 
 public class TopologicalSortTest {
@@ -31,4 +40,58 @@ public class TopologicalSortTest {
         assertTrue(order.indexOf(1) < order.indexOf(3));
         assertTrue(order.indexOf(2) < order.indexOf(3));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTopologicalLevels() {
+        Graph graph = new Graph();
+        graph.n = 6;
+        graph.edges.add(new Edge(0, 2, 1));
+        graph.edges.add(new Edge(1, 2, 1));
+        graph.edges.add(new Edge(1, 3, 1));
+        graph.edges.add(new Edge(2, 4, 1));
+        graph.edges.add(new Edge(3, 4, 1));
+        graph.edges.add(new Edge(0, 4, 1));
+        graph.edges.add(new Edge(5, 3, 1));
+        graph.buildGraph();
+
+        TopologicalSort topo = new TopologicalSort(graph, new Metrics());
+        TopologicalLevels levels = topo.topologicalLevels();
+
+        assertTrue(levels.isComplete());
+        assertEquals(3, levels.levelCount);
+        assertEquals(Arrays.asList(0, 1, 5), levels.getLevel(0));
+        assertEquals(Arrays.asList(2, 3), levels.getLevel(1));
+        assertEquals(Arrays.asList(4), levels.getLevel(2));
+        assertEquals(2, levels.levelOf(4));
+
+        TopologicalLevels parallel = topo.topologicalLevelsParallel(ForkJoinPool.commonPool());
+        assertEquals(levels.getOrder(), parallel.getOrder());
+        for (int node = 0; node < graph.n; node++) {
+            assertEquals(levels.levelOf(node), parallel.levelOf(node));
+        }
+    }
+
+    @Test
+    public void testTaskOrderViewMatchesExpandedOrder() {
+        Graph graph = GraphGenerator.generateCyclicGraph(400, 1200, 8);
+        SCCResult components = new TarjanSCC(graph, new Metrics()).computeComponents();
+        CondensationGraph condensation = new CondensationGraph(graph, components);
+        TopologicalSort topo = new TopologicalSort(condensation.getCondensationGraph(), new Metrics());
+        List<Integer> componentOrder = topo.topologicalOrderKahn();
+
+        List<Integer> expanded = topo.getOriginalTaskOrder(componentOrder, null, components.toLists());
+        TaskOrderView view = topo.getTaskOrderView(componentOrder, components);
+        assertEquals(expanded, view);
+        assertEquals(expanded.subList(0, 10), view.subList(0, 10));
+        for (int p = 0; p < expanded.size(); p += 7) {
+            assertEquals((int) expanded.get(p), view.getInt(p));
+            PrimitiveIterator.OfInt it = view.intIterator(p);
+            for (int q = p; q < Math.min(p + 20, expanded.size()); q++) {
+                assertEquals((int) expanded.get(q), it.nextInt());
+            }
+        }
+        assertArrayEquals(expanded.stream().mapToInt(Integer::intValue).toArray(), view.intStream().toArray());
+        assertArrayEquals(view.toIntArray(390, 400), view.subList(390, 400).stream().mapToInt(Integer::intValue).toArray());
+        assertFalse(view.intIterator(view.size()).hasNext());
+    }
+}